@@ -0,0 +1,1263 @@
+package com.dkit.oop;
+
+import com.dkit.oop.controllers.StudentController;
+import com.dkit.oop.dao.CachingStudentDAO;
+import com.dkit.oop.dao.ColumnarStudentDAO;
+import com.dkit.oop.dao.ConcurrentStudentDAO;
+import com.dkit.oop.dao.DurableStudentDAO;
+import com.dkit.oop.dao.JdbcStudentDAO;
+import com.dkit.oop.dao.StudentDAO;
+import com.dkit.oop.models.Student;
+import com.dkit.oop.network.NioStudentServer;
+import com.dkit.oop.network.StudentClient;
+import com.dkit.oop.network.StudentServer;
+import com.dkit.oop.dao.StudentDAOImpl;
+import com.dkit.oop.dao.StudentStatistics;
+import com.dkit.oop.utils.JsonUtils;
+import com.dkit.oop.utils.StudentComparator;
+import com.dkit.oop.utils.StudentCsvImporter;
+import com.dkit.oop.utils.TopK;
+import org.example.CsvStudentLoader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark application for the performance-sensitive parts of the project
+ * Like TestApplication this runs from the command line without JavaFX.
+ * Pass a benchmark name to run just that one, or nothing to run them all:
+ *   java com.dkit.oop.BenchmarkApplication concurrent-dao
+ */
+public class BenchmarkApplication {
+    
+    private static final String[] COURSES = {
+        "Computer Science", "Software Engineering", "Data Science", "Cyber Security",
+        "Games Development", "Information Systems", "Networks", "Creative Media"
+    };
+    private static final String[] FIRST_NAMES = {
+        "John", "Jane", "Mike", "Sarah", "David", "Emily", "Michael", "Lisa", "James", "Amanda"
+    };
+    private static final String[] LAST_NAMES = {
+        "Doe", "Smith", "Johnson", "Wilson", "Brown", "Davis", "Anderson", "Taylor", "Martinez", "Murphy"
+    };
+    
+    public static void main(String[] args) {
+        String benchmark = args.length > 0 ? args[0] : "all";
+        System.out.println("=== OOP Repeat Assessment Project - Benchmarks ===\n");
+        
+        if (shouldRun(benchmark, "concurrent-dao")) {
+            benchmarkConcurrentDaoReads();
+        }
+        if (shouldRun(benchmark, "client")) {
+            benchmarkClientConnections();
+        }
+        if (shouldRun(benchmark, "nio-idle")) {
+            int idleConnections = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+            benchmarkNioIdleConnections(idleConnections);
+        }
+        if (shouldRun(benchmark, "server-load")) {
+            int clients = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+            benchmarkServerModes(clients);
+        }
+        if (shouldRun(benchmark, "wire")) {
+            int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+            benchmarkWireProtocols(requests);
+        }
+        if (shouldRun(benchmark, "response-cache")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+            benchmarkResponseCache(students);
+        }
+        if (shouldRun(benchmark, "wal")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+            benchmarkDurableStore(students);
+        }
+        if (shouldRun(benchmark, "jdbc")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+            String url = args.length > 2 ? args[2] : "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+            benchmarkJdbcStore(students, url);
+        }
+        if (shouldRun(benchmark, "dao-cache")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+            benchmarkCachingDao(students);
+        }
+        if (shouldRun(benchmark, "json")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+            benchmarkJsonRoundTrip(students);
+        }
+        if (shouldRun(benchmark, "csv-load")) {
+            int rows = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+            benchmarkCsvLoad(rows);
+        }
+        if (shouldRun(benchmark, "csv-import")) {
+            int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+            benchmarkCsvImport(rows);
+        }
+        if (shouldRun(benchmark, "columnar")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+            benchmarkColumnarStore(students);
+        }
+        if (shouldRun(benchmark, "statistics")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+            benchmarkStatisticsSummary(students);
+        }
+        if (shouldRun(benchmark, "percentiles")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+            benchmarkPercentiles(students);
+        }
+        if (shouldRun(benchmark, "age-sort")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+            benchmarkAgeSort(students);
+        }
+        if (shouldRun(benchmark, "sort-keys")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+            benchmarkSortKeys(students);
+        }
+        if (shouldRun(benchmark, "topk")) {
+            int students = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+            benchmarkTopK(students);
+        }
+        
+        System.out.println("\n=== Benchmarks Completed ===");
+    }
+    
+    private static boolean shouldRun(String requested, String name) {
+        return requested.equals("all") || requested.equals(name);
+    }
+    
+    /**
+     * Stress test for ConcurrentStudentDAO: reader threads do ID and course
+     * lookups while one writer keeps updating students. Read throughput
+     * should grow with the reader count up to the number of cores.
+     */
+    private static void benchmarkConcurrentDaoReads() {
+        System.out.println("Concurrent DAO read scaling:");
+        int studentCount = 100_000;
+        List<Student> students = generateStudents(studentCount, 42);
+        StudentDAO dao = new ConcurrentStudentDAO();
+        students.forEach(dao::addStudent);
+        
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("  " + studentCount + " students, " + cores + " available cores");
+        
+        for (int readers = 1; readers <= Math.max(2, cores * 2); readers *= 2) {
+            LongAdder reads = new LongAdder();
+            LongAdder writes = new LongAdder();
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Thread> threads = new ArrayList<>();
+            
+            for (int i = 0; i < readers; i++) {
+                threads.add(new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (running.get()) {
+                        if (random.nextInt(100) < 95) {
+                            dao.findStudentById(students.get(random.nextInt(studentCount)).getStudentId());
+                        } else {
+                            dao.findStudentsByCourse("Creative Media").size();
+                        }
+                        reads.increment();
+                    }
+                }));
+            }
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    dao.updateStudent(students.get(random.nextInt(studentCount)));
+                    writes.increment();
+                }
+            }));
+            
+            threads.forEach(Thread::start);
+            sleepQuietly(1000);
+            running.set(false);
+            threads.forEach(BenchmarkApplication::joinQuietly);
+            
+            if (dao.getStudentCount() != studentCount) {
+                throw new IllegalStateException("Student count drifted to " + dao.getStudentCount());
+            }
+            System.out.printf("  %2d readers: %,12d reads/sec, %,10d writes/sec%n",
+                readers, reads.sum(), writes.sum());
+        }
+    }
+    
+    /**
+     * Compare connect-per-request against pooled keep-alive connections,
+     * with and without pipelining, against a local StudentServer
+     */
+    private static void benchmarkClientConnections() {
+        System.out.println("\nStudentClient requests/sec:");
+        String request = "GET_STUDENT_BY_ID|S001";
+        int requests = 2_000;
+        
+        List<String> results = new ArrayList<>();
+        withLocalServer(port -> {
+            StudentClient perRequest = new StudentClient("localhost", port);
+            results.add(timeRequests("connect per request", requests, () -> {
+                for (int i = 0; i < requests; i++) {
+                    perRequest.sendRequest(request);
+                }
+            }));
+            
+            try (StudentClient pooled = new StudentClient("localhost", port, 4)) {
+                results.add(timeRequests("pooled keep-alive", requests * 10, () -> {
+                    for (int i = 0; i < requests * 10; i++) {
+                        pooled.sendRequest(request);
+                    }
+                }));
+                results.add(timeRequests("pooled + pipelined", requests * 10, () -> {
+                    // Every tenth request has a multi-line answer, which must not spill into the next one
+                    List<String> batch = new ArrayList<>(requests * 10);
+                    for (int i = 0; i < requests * 10; i++) {
+                        batch.add(i % 10 == 9 ? "GET_STATISTICS" : request);
+                    }
+                    List<String> responses = pooled.sendPipelined(batch);
+                    for (int i = 0; i < batch.size(); i++) {
+                        String expected = batch.get(i).equals(request) ? "SUCCESS|{" : "SUCCESS|Total Students: ";
+                        if (!responses.get(i).startsWith(expected)) {
+                            throw new IllegalStateException("Pipelined request failed: " + responses.get(i));
+                        }
+                    }
+                }));
+            }
+        });
+        results.forEach(System.out::println);
+    }
+    
+    /**
+     * Text against binary framing on one pipelined connection to a local
+     * StudentServer: bytes on the wire and process CPU time per request.
+     * Client and server share the process, so the CPU time covers both ends.
+     */
+    private static void benchmarkWireProtocols(int requests) {
+        System.out.println("\nWire protocols, " + requests + " requests each:");
+        String[] workload = {"GET_STUDENT_BY_ID|S001", "GET_ALL_STUDENTS", "GET_STATISTICS", "GET_STUDENTS_BY_YEAR|x",
+            "NO_SUCH_COMMAND"};
+        com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) java.lang.management.ManagementFactory.getOperatingSystemMXBean();
+        
+        List<String> results = new ArrayList<>();
+        withLocalServer(port -> {
+            try (StudentClient text = new StudentClient("localhost", port, 1, StudentClient.Protocol.TEXT);
+                 StudentClient binary = new StudentClient("localhost", port, 1, StudentClient.Protocol.BINARY)) {
+                for (String request : workload) {
+                    List<String> batch = Collections.nCopies(requests, request);
+                    // Warm up, and check both protocols give the same answers
+                    if (!text.sendPipelined(batch).equals(binary.sendPipelined(batch))) {
+                        throw new IllegalStateException("Protocols disagree on " + request);
+                    }
+                    for (StudentClient client : List.of(text, binary)) {
+                        String label = (client == text ? "text   " : "binary ") + request;
+                        long sent = client.getBytesSent();
+                        long received = client.getBytesReceived();
+                        long cpu = os.getProcessCpuTime();
+                        client.sendPipelined(batch);
+                        results.add(String.format("  %-32s %7.1f bytes/request, %6.2f us CPU/request", label,
+                            (client.getBytesSent() - sent + client.getBytesReceived() - received) / (double) requests,
+                            (os.getProcessCpuTime() - cpu) / 1e3 / requests));
+                    }
+                }
+                
+                // Decoded students, as a caller that wants objects rather than JSON sees it
+                for (StudentClient client : List.of(text, binary)) {
+                    long cpu = os.getProcessCpuTime();
+                    for (int i = 0; i < requests; i++) {
+                        client.fetchStudents("GET_ALL_STUDENTS");
+                    }
+                    results.add(String.format("  %-32s %6.2f us CPU/request",
+                        (client == text ? "text   " : "binary ") + "fetchStudents(GET_ALL)",
+                        (os.getProcessCpuTime() - cpu) / 1e3 / requests));
+                }
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+        results.forEach(System.out::println);
+    }
+    
+    /**
+     * Read-only commands against StudentServer with and without its
+     * response cache, both serving one controller, with a write through the
+     * controller every so often to invalidate the cache. Afterwards every
+     * cached answer is checked against the uncached server's, across writes.
+     */
+    private static void benchmarkResponseCache(int studentCount) {
+        System.out.println("\nResponse cache with " + studentCount + " students:");
+        StudentController controller = new StudentController(new ConcurrentStudentDAO());
+        List<Student> students = generateStudents(studentCount, 11);
+        controller.addStudents(students);
+        String[] workload = {"GET_ALL_STUDENTS", "GET_HONORS_STUDENTS", "GET_STUDENTS_BY_COURSE|Networks",
+            "GET_STUDENTS_BY_COURSE|Data Science"};
+        int requests = 4_000;
+        java.util.function.IntConsumer write = i -> {
+            Student student = students.get(i % students.size());
+            student.setGpa(student.getGpa() >= 3.9 ? 2.0 : student.getGpa() + 0.1);
+            controller.updateStudent(student);
+        };
+        
+        List<String> results = new ArrayList<>();
+        StudentServer[] cached = new StudentServer[1];
+        withLocalServer(port -> new StudentServer(port, StudentServer.ExecutionMode.FIXED_POOL, 100, 8, controller, 0),
+            uncachedPort -> withLocalServer(port -> cached[0] = new StudentServer(port,
+                StudentServer.ExecutionMode.FIXED_POOL, 100, 8, controller, 64L * 1024 * 1024), cachedPort -> {
+                try (StudentClient uncached = new StudentClient("localhost", uncachedPort, 1);
+                     StudentClient cachedText = new StudentClient("localhost", cachedPort, 1);
+                     StudentClient cachedBinary = new StudentClient("localhost", cachedPort, 1,
+                         StudentClient.Protocol.BINARY)) {
+                    for (int writeInterval : new int[] {0, 100, 10}) {
+                        for (StudentClient client : List.of(uncached, cachedText, cachedBinary)) {
+                            String label = (client == uncached ? "no cache" : client == cachedText ? "cache, text"
+                                : "cache, binary") + (writeInterval == 0 ? "" : ", write every " + writeInterval);
+                            long start = System.nanoTime();
+                            for (int i = 0; i < requests; i++) {
+                                if (writeInterval > 0 && i % writeInterval == 0) {
+                                    write.accept(i);
+                                }
+                                client.sendRequest(workload[i % workload.length]);
+                            }
+                            results.add(String.format("  %-40s %8.0f requests/sec", label + ":",
+                                requests / ((System.nanoTime() - start) / 1e9)));
+                        }
+                    }
+                    
+                    for (int i = 0; i < 200; i++) {
+                        if (i % 3 == 0) {
+                            write.accept(i);
+                        }
+                        String request = workload[i % workload.length];
+                        if (!cachedText.sendRequest(request).equals(uncached.sendRequest(request))) {
+                            throw new IllegalStateException("Stale cached response for " + request);
+                        }
+                    }
+                }
+            }));
+        results.add("  " + cached[0].getResponseCache());
+        results.forEach(System.out::println);
+    }
+    
+    /**
+     * DurableStudentDAO: update latency under each sync policy with one and
+     * with several writer threads, then the time to reopen a store of the
+     * given size from its snapshot and log. Large stores want a larger heap,
+     * e.g. -Xmx3g for 5,000,000 students.
+     */
+    private static void benchmarkDurableStore(int studentCount) {
+        System.out.println("\nDurable student store:");
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("student-store");
+            List<Student> students = generateStudents(10_000, 12);
+            int updatesPerThread = 1_000;
+            for (DurableStudentDAO.SyncPolicy policy : DurableStudentDAO.SyncPolicy.values()) {
+                for (int threads : new int[] {1, 8}) {
+                    deleteTree(directory);
+                    try (DurableStudentDAO dao = new DurableStudentDAO(new ConcurrentStudentDAO(), directory, policy,
+                            DurableStudentDAO.DEFAULT_SYNC_INTERVAL_MILLIS, DurableStudentDAO.DEFAULT_SNAPSHOT_LOG_BYTES)) {
+                        dao.addAll(students);
+                        long[] latencies = new long[threads * updatesPerThread];
+                        CountDownLatch done = new CountDownLatch(threads);
+                        long start = System.nanoTime();
+                        for (int t = 0; t < threads; t++) {
+                            int thread = t;
+                            new Thread(() -> {
+                                Random random = new Random(thread);
+                                for (int i = 0; i < updatesPerThread; i++) {
+                                    Student student = students.get(random.nextInt(students.size()));
+                                    long begin = System.nanoTime();
+                                    dao.updateStudent(student);
+                                    latencies[thread * updatesPerThread + i] = System.nanoTime() - begin;
+                                }
+                                done.countDown();
+                            }).start();
+                        }
+                        done.await();
+                        double seconds = (System.nanoTime() - start) / 1e9;
+                        java.util.Arrays.sort(latencies);
+                        System.out.printf("  %-12s %d writer%s: %8.0f writes/sec, p50 %8.1f us, p99 %8.1f us%n",
+                            policy, threads, threads == 1 ? " " : "s", latencies.length / seconds,
+                            latencies[latencies.length / 2] / 1e3, latencies[latencies.length * 99 / 100] / 1e3);
+                    }
+                }
+            }
+            
+            // Build a store: a snapshot of every student plus a log of later updates
+            deleteTree(directory);
+            int loggedUpdates = Math.min(studentCount, 100_000);
+            try (DurableStudentDAO dao = new DurableStudentDAO(new ColumnarStudentDAO(), directory,
+                    DurableStudentDAO.SyncPolicy.PERIODIC, DurableStudentDAO.DEFAULT_SYNC_INTERVAL_MILLIS, Long.MAX_VALUE)) {
+                for (int first = 0; first < studentCount; first += 100_000) {
+                    dao.addAll(generateStudents(first, Math.min(100_000, studentCount - first), first));
+                }
+                long start = System.nanoTime();
+                dao.snapshot();
+                System.out.printf("  snapshot of %d students written in %.2f s%n", studentCount, (System.nanoTime() - start) / 1e9);
+                for (Student student : generateStudents(0, loggedUpdates, 13)) {
+                    dao.updateStudent(student);
+                }
+            }
+            long bytes = 0;
+            try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    bytes += Files.size(file);
+                }
+            }
+            
+            long start = System.nanoTime();
+            try (DurableStudentDAO dao = new DurableStudentDAO(new ColumnarStudentDAO(), directory)) {
+                System.out.printf("  recovered %d students (%d logged updates, %.0f MB on disk) in %.2f s%n",
+                    dao.getStudentCount(), loggedUpdates, bytes / 1e6, (System.nanoTime() - start) / 1e9);
+            }
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (directory != null) {
+                try {
+                    deleteTree(directory);
+                    Files.deleteIfExists(directory);
+                } catch (IOException e) {
+                    System.err.println("Could not clean up " + directory + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * JdbcStudentDAO against any JDBC URL whose driver is on the class path,
+     * by default an in-memory H2 database: single-row inserts against
+     * batched ones, ID lookups on pooled connections with reused statements
+     * against a statement prepared per lookup, and a full listing collected
+     * into a list against one streamed through forEachStudent.
+     */
+    private static void benchmarkJdbcStore(int studentCount, String url) {
+        System.out.println("\nJDBC student store (" + url + "):");
+        try (JdbcStudentDAO dao = new JdbcStudentDAO(url, null, null)) {
+            try {
+                dao.createSchema();
+            } catch (IllegalStateException e) {
+                System.out.println("  skipped: " + e.getMessage());
+                return;
+            }
+            if (dao.getStudentCount() > 0) {
+                System.out.println("  skipped: the students table is not empty");
+                return;
+            }
+            
+            int singleRows = Math.min(studentCount, 20_000);
+            List<Student> students = generateStudents(studentCount, 14);
+            long start = System.nanoTime();
+            for (Student student : students.subList(0, singleRows)) {
+                dao.addStudent(student);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  addStudent, one row per statement: %,10.0f rows/sec%n", singleRows / seconds);
+            
+            start = System.nanoTime();
+            dao.addAll(students.subList(singleRows, studentCount));
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  addAll, %,d rows per batch:      %,10.0f rows/sec%n",
+                JdbcStudentDAO.DEFAULT_BATCH_SIZE, (studentCount - singleRows) / seconds);
+            
+            int lookups = 50_000;
+            try (java.sql.Connection connection = java.sql.DriverManager.getConnection(url)) {
+                start = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    try (java.sql.PreparedStatement statement = connection.prepareStatement(
+                            "SELECT student_id, first_name, last_name, date_of_birth, email, course, year_of_study, gpa"
+                            + " FROM students WHERE student_id = ?")) {
+                        statement.setString(1, students.get(i * 7 % studentCount).getStudentId());
+                        try (java.sql.ResultSet rows = statement.executeQuery()) {
+                            rows.next();
+                        }
+                    }
+                }
+                seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("  lookup, prepared per call, 1 thread : %,8.0f lookups/sec%n", lookups / seconds);
+            }
+            for (int threads : new int[] {1, 4}) {
+                CountDownLatch done = new CountDownLatch(threads);
+                start = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    new Thread(() -> {
+                        for (int i = 0; i < lookups; i++) {
+                            if (!dao.findStudentById(students.get((i * 7 + thread) % studentCount).getStudentId()).isPresent()) {
+                                throw new IllegalStateException("Lookup failed");
+                            }
+                        }
+                        done.countDown();
+                    }).start();
+                }
+                done.await();
+                seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("  findStudentById, pooled, %d thread%s: %,8.0f lookups/sec%n",
+                    threads, threads == 1 ? " " : "s", threads * lookups / seconds);
+            }
+            
+            start = System.nanoTime();
+            int listed = dao.getAllStudents().size();
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  getAllStudents: %,d students in %.2f s%n", listed, seconds);
+            
+            LongAdder count = new LongAdder();
+            double[] gpaSum = new double[1];
+            start = System.nanoTime();
+            dao.forEachStudent(student -> {
+                count.increment();
+                gpaSum[0] += student.getGpa();
+            });
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  forEachStudent: %,d students in %.2f s, average GPA %.2f, %,d rows per fetch%n",
+                count.sum(), seconds, gpaSum[0] / count.sum(), JdbcStudentDAO.DEFAULT_FETCH_SIZE);
+        } catch (java.sql.SQLException e) {
+            System.out.println("  skipped: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * CachingStudentDAO in front of a backend whose findStudentById takes
+     * about 200 us, like a database round trip: skewed ID lookups from
+     * several threads with and without the cache, a few for IDs that do not
+     * exist, then many threads missing on the same ID at once.
+     */
+    private static void benchmarkCachingDao(int studentCount) {
+        System.out.println("\nCaching DAO over a slow backend:");
+        ConcurrentStudentDAO store = new ConcurrentStudentDAO();
+        List<Student> students = generateStudents(studentCount, 15);
+        store.addAll(students);
+        LongAdder backendCalls = new LongAdder();
+        StudentDAO slowDAO = (StudentDAO) java.lang.reflect.Proxy.newProxyInstance(StudentDAO.class.getClassLoader(),
+            new Class<?>[] {StudentDAO.class}, (proxy, method, arguments) -> {
+                if (method.getName().equals("findStudentById")) {
+                    backendCalls.increment();
+                    java.util.concurrent.locks.LockSupport.parkNanos(200_000);
+                }
+                try {
+                    return method.invoke(store, arguments);
+                } catch (java.lang.reflect.InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        
+        int threads = 8;
+        int lookupsPerThread = 25_000;
+        for (boolean cached : new boolean[] {false, true}) {
+            CachingStudentDAO cache = new CachingStudentDAO(slowDAO, studentCount / 10);
+            StudentDAO dao = cached ? cache : slowDAO;
+            backendCalls.reset();
+            CountDownLatch done = new CountDownLatch(threads);
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                new Thread(() -> {
+                    Random random = new Random(thread);
+                    for (int i = 0; i < lookupsPerThread; i++) {
+                        // Cubing a uniform value favours low indices, so a few students are looked up often
+                        int index = (int) (studentCount * Math.pow(random.nextDouble(), 3));
+                        String studentId = random.nextInt(50) == 0 ? "X" + index : students.get(index).getStudentId();
+                        dao.findStudentById(studentId);
+                    }
+                    done.countDown();
+                }).start();
+            }
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  %-8s %d threads: %,8.0f lookups/sec, %,6d backend calls%n",
+                cached ? "cached" : "uncached", threads, threads * lookupsPerThread / seconds, backendCalls.sum());
+            if (cached) {
+                System.out.printf("  hit ratio %.3f (%,d negative hits), average load %.3f ms, max load %.3f ms, %,d evictions%n",
+                    cache.getHitRatio(), cache.getNegativeHitCount(), cache.getAverageLoadMillis(),
+                    cache.getMaxLoadMillis(), cache.getEvictionCount());
+            }
+        }
+        
+        CachingStudentDAO cache = new CachingStudentDAO(slowDAO, 1_000);
+        int herd = 64;
+        backendCalls.reset();
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Thread> waiting = new ArrayList<>(herd);
+        for (int t = 0; t < herd; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                cache.findStudentById(students.get(studentCount - 1).getStudentId());
+            });
+            thread.start();
+            waiting.add(thread);
+        }
+        ready.countDown();
+        waiting.forEach(BenchmarkApplication::joinQuietly);
+        System.out.printf("  %d threads missing on one ID at once: %d backend call%s%n",
+            herd, backendCalls.sum(), backendCalls.sum() == 1 ? "" : "s");
+    }
+    
+    /**
+     * Delete the files in a directory, keeping the directory
+     */
+    private static void deleteTree(Path directory) throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    /**
+     * Hold many idle connections open on NioStudentServer and check that
+     * active clients are still served promptly. The blocking StudentServer
+     * would stall every client after the tenth.
+     */
+    private static void benchmarkNioIdleConnections(int idleCount) {
+        System.out.println("\nNIO server with idle connections:");
+        int port = findFreePort();
+        int workers = 2;
+        NioStudentServer server = new NioStudentServer(port, workers);
+        Thread serverThread = new Thread(server::start, "benchmark-nio-server");
+        List<Socket> idle = new ArrayList<>(idleCount);
+        List<String> results = new ArrayList<>();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            serverThread.start();
+            waitForPort(port);
+            int threadsBefore = Thread.activeCount();
+            for (int i = 0; i < idleCount; i++) {
+                idle.add(new Socket("localhost", port));
+            }
+            results.add(String.format("  %,d idle connections open, %d server threads, %d JVM threads in total",
+                idle.size(), workers + 1, Thread.activeCount()));
+            
+            try (StudentClient client = new StudentClient("localhost", port, 4)) {
+                int requests = 20_000;
+                results.add(timeRequests("active client", requests, () -> {
+                    for (int i = 0; i < requests; i++) {
+                        if (!client.sendRequest("GET_STUDENT_BY_ID|S001").startsWith("SUCCESS|")) {
+                            throw new IllegalStateException("Request failed with idle connections open");
+                        }
+                    }
+                }));
+            }
+            if (Thread.activeCount() > threadsBefore + 1) {
+                results.add("  warning: thread count grew with connections");
+            }
+        } catch (IOException e) {
+            results.add("  could not open idle connections: " + e.getMessage());
+        } finally {
+            for (Socket socket : idle) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // closing anyway
+                }
+            }
+            server.stop();
+            joinQuietly(serverThread);
+            System.setOut(console);
+        }
+        results.forEach(System.out::println);
+    }
+    
+    /**
+     * Load test for StudentServer's execution modes: thousands of clients
+     * each hold a keep-alive connection and send a few requests with a short
+     * pause between them. Latency is measured per request from the client,
+     * so time spent waiting for a server thread shows up in the percentiles.
+     */
+    private static void benchmarkServerModes(int clientCount) {
+        System.out.println("\nStudentServer latency with " + clientCount + " concurrent clients:");
+        int requestsPerClient = 10;
+        long pauseMillis = 5;
+        
+        List<String> results = new ArrayList<>();
+        for (StudentServer.ExecutionMode mode : StudentServer.ExecutionMode.values()) {
+            long[] latencies = new long[clientCount * requestsPerClient];
+            LongAdder failures = new LongAdder();
+            long[] elapsed = new long[1];
+            
+            withLocalServer(mode, port -> {
+                CountDownLatch startSignal = new CountDownLatch(1);
+                List<Thread> clients = new ArrayList<>(clientCount);
+                for (int c = 0; c < clientCount; c++) {
+                    int offset = c * requestsPerClient;
+                    clients.add(new Thread(() -> {
+                        try (StudentClient client = new StudentClient("localhost", port, 1)) {
+                            startSignal.await();
+                            for (int i = 0; i < requestsPerClient; i++) {
+                                long start = System.nanoTime();
+                                if (!client.sendRequest("GET_STUDENT_BY_ID|S001").startsWith("SUCCESS|")) {
+                                    failures.increment();
+                                }
+                                latencies[offset + i] = System.nanoTime() - start;
+                                sleepQuietly(pauseMillis);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }, "load-client-" + c));
+                }
+                clients.forEach(Thread::start);
+                long start = System.nanoTime();
+                startSignal.countDown();
+                clients.forEach(BenchmarkApplication::joinQuietly);
+                elapsed[0] = System.nanoTime() - start;
+            });
+            
+            java.util.Arrays.sort(latencies);
+            results.add(String.format("  %-16s p50 %8.2f ms, p99 %8.2f ms, max %8.2f ms, %,d failed, %.1f s total",
+                mode + ":", percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6,
+                latencies[latencies.length - 1] / 1e6, failures.sum(), elapsed[0] / 1e9));
+        }
+        results.forEach(System.out::println);
+    }
+    
+    /**
+     * Nearest-rank percentile of sorted values
+     */
+    private static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+    
+    /**
+     * Export students to a JSON file and parse it back, reporting MB/s for
+     * each direction. The streaming pass hands students to a counter instead
+     * of a list, which is how very large exports are read in constant memory.
+     */
+    private static void benchmarkJsonRoundTrip(int studentCount) {
+        System.out.println("\nJSON export and parse of " + studentCount + " students:");
+        List<Student> students = generateStudents(studentCount, 7);
+        
+        Path file = null;
+        try {
+            file = Files.createTempFile("students", ".json");
+            String path = file.toString();
+            
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                JsonUtils.saveStudentsToFile(students, path);
+                long exportNanos = System.nanoTime() - start;
+                double megabytes = Files.size(file) / 1e6;
+                
+                start = System.nanoTime();
+                List<Student> loaded = JsonUtils.loadStudentsFromFile(path);
+                long loadNanos = System.nanoTime() - start;
+                
+                LongAdder streamed = new LongAdder();
+                start = System.nanoTime();
+                JsonUtils.readStudentsFromFile(path, student -> streamed.increment());
+                long streamNanos = System.nanoTime() - start;
+                
+                if (!loaded.equals(students) || streamed.sum() != studentCount) {
+                    throw new IllegalStateException("Round trip did not reproduce the students");
+                }
+                System.out.printf("  round %d: %.0f MB, export %6.0f MB/s, load %6.0f MB/s, stream %6.0f MB/s%n",
+                    round + 1, megabytes, megabytes / (exportNanos / 1e9),
+                    megabytes / (loadNanos / 1e9), megabytes / (streamNanos / 1e9));
+            }
+        } catch (IOException e) {
+            System.out.println("  could not use a temporary file: " + e.getMessage());
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // temporary file, left for the OS to clean up
+                }
+            }
+        }
+    }
+    
+    /**
+     * Load a generated registry CSV with CsvStudentLoader. One row in every
+     * hundred thousand is malformed, to check that they are reported with
+     * the right line numbers without stopping the load.
+     */
+    private static void benchmarkCsvLoad(int rowCount) {
+        System.out.println("\nParallel CSV load of " + rowCount + " rows:");
+        Path file = null;
+        try {
+            file = Files.createTempFile("students", ".csv");
+            List<Long> malformedLines = new ArrayList<>();
+            List<Student> students = generateStudents(rowCount, 11);
+            try (BufferedWriter writer = Files.newBufferedWriter(file, java.nio.charset.Charset.defaultCharset())) {
+                writer.write("StudentID,FirstName,LastName,Age,Email,Course,YearOfStudy,GPA\n");
+                for (int i = 0; i < rowCount; i++) {
+                    Student student = students.get(i);
+                    if (i % 100_000 == 50_000) {
+                        // The header is line 1, so row i is on line i + 2
+                        malformedLines.add(i + 2L);
+                        writer.write(student.getStudentId() + ",missing fields\n");
+                        continue;
+                    }
+                    writer.write(student.getStudentId() + "," + student.getFirstName() + "," + student.getLastName()
+                        + "," + student.getAge() + "," + student.getEmail() + "," + student.getCourse()
+                        + "," + student.getYearOfStudy() + "," + student.getGpa() + "\n");
+                }
+            }
+            double megabytes = Files.size(file) / 1e6;
+            
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                CsvStudentLoader.LoadResult result = CsvStudentLoader.load(file.toString());
+                double seconds = (System.nanoTime() - start) / 1e9;
+                
+                List<Long> reportedLines = new ArrayList<>();
+                result.getErrors().forEach(error -> reportedLines.add(error.getLineNumber()));
+                if (result.getStudents().size() + result.getErrors().size() != rowCount) {
+                    throw new IllegalStateException("Rows were lost during the load");
+                }
+                System.out.printf("  round %d: %.0f MB, %,10.0f rows/sec, %.0f MB/s, %d malformed rows reported%s%n",
+                    round + 1, megabytes, rowCount / seconds, megabytes / seconds, reportedLines.size(),
+                    reportedLines.equals(malformedLines) ? "" : ", expected lines " + malformedLines);
+            }
+        } catch (IOException e) {
+            System.out.println("  could not use a temporary file: " + e.getMessage());
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // temporary file, left for the OS to clean up
+                }
+            }
+        }
+    }
+    
+    /**
+     * Stream a generated CSV file into a StudentDAOImpl through
+     * StudentCsvImporter, printing the live counters while it runs
+     */
+    private static void benchmarkCsvImport(int rowCount) {
+        System.out.println("\nStreaming CSV import of " + rowCount + " rows:");
+        Path file = null;
+        try {
+            file = Files.createTempFile("students-import", ".csv");
+            Random random = new Random(13);
+            int malformed = 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(file, java.nio.charset.Charset.defaultCharset())) {
+                writer.write("StudentID,FirstName,LastName,DateOfBirth,Email,Course,YearOfStudy,GPA\n");
+                for (int i = 0; i < rowCount; i++) {
+                    if (i % 100_000 == 99) {
+                        writer.write(String.format("C%08d,Bad,Row,not-a-date,bad@email.com,Networks,2,3.0%n", i));
+                        malformed++;
+                        continue;
+                    }
+                    writer.write(String.format("C%08d,%s,%s,%d-%02d-%02d,c%d@email.com,%s,%d,%.2f%n", i,
+                        FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                        1985 + random.nextInt(20), 1 + random.nextInt(12), 1 + random.nextInt(28), i,
+                        COURSES[random.nextInt(COURSES.length)], 1 + random.nextInt(4), random.nextInt(401) / 100.0));
+                }
+            }
+            
+            StudentDAO dao = new StudentDAOImpl();
+            StudentCsvImporter importer = new StudentCsvImporter(dao);
+            String path = file.toString();
+            Thread progress = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    sleepQuietly(1000);
+                    System.out.printf("  ... %,d lines read, %,d imported, %,d rejected%n",
+                        importer.getLinesRead(), importer.getStudentsImported(), importer.getRowsRejected());
+                }
+            }, "import-progress");
+            progress.setDaemon(true);
+            progress.start();
+            
+            StudentCsvImporter.ImportResult result = importer.importFile(path);
+            progress.interrupt();
+            
+            System.out.println("  " + result);
+            if (result.getStudentsImported() != rowCount - malformed || result.getRowsRejected() != malformed
+                    || dao.getStudentCount() != rowCount - malformed) {
+                throw new IllegalStateException("Import counts do not match the generated file");
+            }
+            if (!result.getRejectSamples().isEmpty()) {
+                System.out.println("  first reject: " + result.getRejectSamples().get(0));
+            }
+        } catch (IOException e) {
+            System.out.println("  could not use a temporary file: " + e.getMessage());
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // temporary file, left for the OS to clean up
+                }
+            }
+        }
+    }
+    
+    /**
+     * Compare the heap held by StudentDAOImpl and ColumnarStudentDAO for the
+     * same students, and the time to compute statistics by walking Student
+     * objects versus scanning the columns
+     */
+    private static void benchmarkColumnarStore(int studentCount) {
+        System.out.println("\nColumnar store with " + studentCount + " students:");
+        
+        long before = usedHeap();
+        StudentDAOImpl objectDao = new StudentDAOImpl();
+        objectDao.addAll(generateStudents(studentCount, 11));
+        long objectBytes = usedHeap() - before;
+        List<Student> objectStudents = objectDao.getAllStudents();
+        
+        before = usedHeap();
+        ColumnarStudentDAO columnarDao = new ColumnarStudentDAO();
+        columnarDao.addAll(generateStudents(studentCount, 11));
+        long columnarBytes = usedHeap() - before;
+        
+        System.out.printf("  heap: StudentDAOImpl %5.0f bytes/student, ColumnarStudentDAO %5.0f bytes/student%n",
+            (double) objectBytes / studentCount, (double) columnarBytes / studentCount);
+        
+        if (!objectDao.getStatistics().toString().equals(columnarDao.getStatistics().toString())
+                || !objectDao.getStudentsSortedByGpa().equals(columnarDao.getStudentsSortedByGpa())) {
+            throw new IllegalStateException("Columnar store disagrees with StudentDAOImpl");
+        }
+        
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            StudentStatistics fromObjects = StudentStatistics.of(objectStudents);
+            long objectNanos = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            StudentStatistics fromColumns = columnarDao.getStatistics();
+            long columnNanos = System.nanoTime() - start;
+            
+            if (!fromObjects.toString().equals(fromColumns.toString())) {
+                throw new IllegalStateException("Statistics differ");
+            }
+            System.out.printf("  round %d: statistics over objects %6.1f ms, over columns %6.1f ms%n",
+                round + 1, objectNanos / 1e6, columnNanos / 1e6);
+        }
+    }
+    
+    /**
+     * Time org.example.Statistics computing each summary figure with its own
+     * pass against the single-pass Summary accumulator
+     */
+    private static void benchmarkStatisticsSummary(int studentCount) {
+        System.out.println("\nStatistics summary of " + studentCount + " students:");
+        Random random = new Random(5);
+        List<org.example.Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            students.add(new org.example.Student(String.format("S%07d", i), "First", "Last", 17 + random.nextInt(20),
+                "student" + i + "@email.com", COURSES[random.nextInt(COURSES.length)], 1 + random.nextInt(4),
+                random.nextInt(401) / 100.0));
+        }
+        org.example.Statistics statistics = new org.example.Statistics(students);
+        
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            double checksum = statistics.calculateAverageGPA() + statistics.getHighestGPA() + statistics.getLowestGPA()
+                + statistics.calculateGPAStandardDeviation() + statistics.calculateAverageAge()
+                + statistics.getGradeDistribution().get("A") + statistics.getAgeDistribution().get("31+");
+            long multiPassNanos = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            org.example.Statistics.Summary summary = statistics.summarize();
+            checksum -= summary.getAverageGPA() + summary.getHighestGPA() + summary.getLowestGPA()
+                + summary.getGPAStandardDeviation() + summary.getAverageAge()
+                + summary.getGradeDistribution().get("A") + summary.getAgeDistribution().get("31+");
+            long singlePassNanos = System.nanoTime() - start;
+            
+            // The average and standard deviation must match to the bit, or "%.2f" can round them differently
+            if (Math.abs(checksum) > 1e-9
+                    || summary.getAverageGPA() != statistics.calculateAverageGPA()
+                    || summary.getGPAStandardDeviation() != statistics.calculateGPAStandardDeviation()) {
+                throw new IllegalStateException("Summary differs from the separate calculations");
+            }
+            System.out.printf("  round %d: separate passes %6.1f ms, single pass %6.1f ms%n",
+                round + 1, multiPassNanos / 1e6, singlePassNanos / 1e6);
+        }
+    }
+    
+    /**
+     * Look up the quartiles and the 90th and 99th percentiles with
+     * Statistics.getGPAPercentile, which sorts on every call, and with each
+     * GpaPercentiles mode built once
+     */
+    private static void benchmarkPercentiles(int studentCount) {
+        System.out.println("\nGPA percentiles of " + studentCount + " students:");
+        Random random = new Random(6);
+        List<org.example.Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            students.add(new org.example.Student(String.format("S%07d", i), "First", "Last", 20,
+                "student" + i + "@email.com", "Computer Science", 1, random.nextInt(401) / 100.0));
+        }
+        org.example.Statistics statistics = new org.example.Statistics(students);
+        double[] percentiles = {25, 50, 75, 90, 99};
+        
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            double[] expected = new double[percentiles.length];
+            for (int i = 0; i < percentiles.length; i++) {
+                expected[i] = statistics.getGPAPercentile(percentiles[i]);
+            }
+            StringBuilder line = new StringBuilder(String.format("  round %d: per call %6.1f ms",
+                round + 1, (System.nanoTime() - start) / 1e6));
+            
+            for (org.example.GpaPercentiles.Mode mode : org.example.GpaPercentiles.Mode.values()) {
+                start = System.nanoTime();
+                org.example.GpaPercentiles summary = statistics.getGPAPercentiles(mode);
+                double worstError = 0;
+                for (int i = 0; i < percentiles.length; i++) {
+                    worstError = Math.max(worstError, Math.abs(summary.getPercentile(percentiles[i]) - expected[i]));
+                }
+                line.append(String.format(", %s %6.1f ms", mode.name().toLowerCase(), (System.nanoTime() - start) / 1e6));
+                if (mode != org.example.GpaPercentiles.Mode.SKETCH && worstError != 0) {
+                    throw new IllegalStateException(mode + " percentiles are not exact");
+                }
+                if (mode == org.example.GpaPercentiles.Mode.SKETCH) {
+                    line.append(String.format(" (off by up to %.2f GPA)", worstError));
+                }
+            }
+            System.out.println(line);
+        }
+    }
+    
+    /**
+     * Sort by age with StudentComparator.BY_AGE_ASC, which goes through the
+     * cached AgeClock path, and with a comparator that calls Period.between
+     * for both students on every comparison, as getAge used to
+     */
+    private static void benchmarkAgeSort(int studentCount) {
+        System.out.println("\nAge sort of " + studentCount + " students:");
+        List<Student> students = generateStudents(studentCount, 8);
+        Comparator<Student> byPeriod = (s1, s2) -> Integer.compare(
+            Period.between(s1.getDateOfBirth(), LocalDate.now()).getYears(),
+            Period.between(s2.getDateOfBirth(), LocalDate.now()).getYears());
+        
+        for (int round = 0; round < 3; round++) {
+            List<Student> cached = new ArrayList<>(students);
+            long start = System.nanoTime();
+            cached.sort(StudentComparator.BY_AGE_ASC);
+            long cachedNanos = System.nanoTime() - start;
+            
+            List<Student> period = new ArrayList<>(students);
+            start = System.nanoTime();
+            period.sort(byPeriod);
+            long periodNanos = System.nanoTime() - start;
+            
+            if (!cached.equals(period)) {
+                throw new IllegalStateException("Age sorts disagree");
+            }
+            System.out.printf("  round %d: Period.between %6.0f ms, AgeClock %6.0f ms%n",
+                round + 1, periodNanos / 1e6, cachedNanos / 1e6);
+        }
+    }
+    
+    /**
+     * Sort with List.sort and with StudentComparator.sort for comparators
+     * that take the merge sort path (names, course) and the radix path
+     * (year and GPA, academic status)
+     */
+    private static void benchmarkSortKeys(int studentCount) {
+        System.out.println("\nSort keys for " + studentCount + " students:");
+        List<Student> students = generateStudents(studentCount, 9);
+        String[] names = {"BY_NAME", "BY_COURSE_YEAR_GPA", "BY_YEAR_THEN_GPA", "BY_ACADEMIC_STATUS", "chain(status, name)"};
+        List<Comparator<Student>> comparators = List.of(StudentComparator.BY_NAME,
+            StudentComparator.BY_COURSE_YEAR_GPA, StudentComparator.BY_YEAR_THEN_GPA,
+            StudentComparator.BY_ACADEMIC_STATUS,
+            StudentComparator.chain(StudentComparator.BY_ACADEMIC_STATUS, StudentComparator.BY_NAME));
+        
+        for (int round = 0; round < 3; round++) {
+            System.out.println("  round " + (round + 1) + ":");
+            for (int c = 0; c < comparators.size(); c++) {
+                List<Student> plain = new ArrayList<>(students);
+                long start = System.nanoTime();
+                plain.sort(comparators.get(c));
+                long plainNanos = System.nanoTime() - start;
+                
+                List<Student> keyed = new ArrayList<>(students);
+                start = System.nanoTime();
+                StudentComparator.sort(keyed, comparators.get(c));
+                long keyedNanos = System.nanoTime() - start;
+                
+                if (!plain.equals(keyed)) {
+                    throw new IllegalStateException(names[c] + " sorts disagree");
+                }
+                System.out.printf("    %-20s List.sort %6.0f ms, sort keys %6.0f ms%n",
+                    names[c], plainNanos / 1e6, keyedNanos / 1e6);
+            }
+        }
+    }
+    
+    /**
+     * Top-K selection against sorting everything and keeping the first k.
+     * The heap only ever holds k students, so its cost barely depends on k
+     * for small k while the full sort pays O(n log n) every time.
+     */
+    private static void benchmarkTopK(int studentCount) {
+        System.out.println("\nTop-K for " + studentCount + " students:");
+        List<Student> students = generateStudents(studentCount, 10);
+        Comparator<Student> byGpa = StudentComparator.BY_GPA_DESC;
+        java.util.function.Predicate<Student> finalYears = student -> student.getYearOfStudy() >= 3;
+        
+        for (int round = 0; round < 3; round++) {
+            System.out.println("  round " + (round + 1) + ":");
+            for (int k : new int[] {10, 100, 1_000}) {
+                long start = System.nanoTime();
+                List<Student> sorted = new ArrayList<>();
+                for (Student student : students) {
+                    if (finalYears.test(student)) {
+                        sorted.add(student);
+                    }
+                }
+                sorted.sort(byGpa);
+                List<Student> expected = new ArrayList<>(sorted.subList(0, Math.min(k, sorted.size())));
+                long sortNanos = System.nanoTime() - start;
+                
+                start = System.nanoTime();
+                List<Student> heap = TopK.select(students, byGpa, k, finalYears);
+                long heapNanos = System.nanoTime() - start;
+                
+                start = System.nanoTime();
+                List<Student> parallel = TopK.parallelSelect(students, byGpa, k, finalYears);
+                long parallelNanos = System.nanoTime() - start;
+                
+                if (!expected.equals(heap) || !expected.equals(parallel)) {
+                    throw new IllegalStateException("Top " + k + " disagrees with sort and limit");
+                }
+                System.out.printf("    k=%-6d sort+limit %6.1f ms, heap %6.1f ms, parallel heaps %6.1f ms%n",
+                    k, sortNanos / 1e6, heapNanos / 1e6, parallelNanos / 1e6);
+            }
+        }
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    private static String timeRequests(String label, int count, Runnable body) {
+        long start = System.nanoTime();
+        body.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return String.format("  %-22s %,10.0f requests/sec", label + ":", count / seconds);
+    }
+    
+    // Helpers
+    
+    /**
+     * Run a body against a StudentServer on a free local port. The server
+     * logs every connection, so stdout is muted while the body runs and
+     * callers print their results afterwards.
+     */
+    private static void withLocalServer(java.util.function.IntConsumer body) {
+        withLocalServer(StudentServer.ExecutionMode.FIXED_POOL, body);
+    }
+    
+    private static void withLocalServer(StudentServer.ExecutionMode mode, java.util.function.IntConsumer body) {
+        withLocalServer(port -> new StudentServer(port, mode), body);
+    }
+    
+    private static void withLocalServer(java.util.function.IntFunction<StudentServer> factory,
+                                        java.util.function.IntConsumer body) {
+        int port = findFreePort();
+        StudentServer server = factory.apply(port);
+        Thread serverThread = new Thread(server::start, "benchmark-server");
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            serverThread.start();
+            waitForPort(port);
+            body.accept(port);
+        } finally {
+            server.stop();
+            joinQuietly(serverThread);
+            System.setOut(console);
+        }
+    }
+    
+    private static int findFreePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException("No free port available", e);
+        }
+    }
+    
+    private static void waitForPort(int port) {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            try {
+                new Socket("localhost", port).close();
+                return;
+            } catch (IOException e) {
+                sleepQuietly(50);
+            }
+        }
+        throw new IllegalStateException("Server did not start on port " + port);
+    }
+    
+    /**
+     * Generate a reproducible set of valid students
+     * @param count the number of students to generate
+     * @param seed the random seed
+     * @return List of generated students with IDs B0000000 upwards
+     */
+    static List<Student> generateStudents(int count, long seed) {
+        return generateStudents(0, count, seed);
+    }
+    
+    /**
+     * Generate students numbered from first, so several calls can build one
+     * large data set a piece at a time
+     */
+    static List<Student> generateStudents(int first, int count, long seed) {
+        Random random = new Random(seed);
+        List<Student> students = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            LocalDate dateOfBirth = LocalDate.of(1985 + random.nextInt(20), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            String email = (firstName + "." + lastName + i + "@email.com").toLowerCase();
+            students.add(new Student(firstName, lastName, dateOfBirth, email, String.format("B%07d", i),
+                COURSES[random.nextInt(COURSES.length)], 1 + random.nextInt(4), random.nextInt(401) / 100.0));
+        }
+        return students;
+    }
+    
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void joinQuietly(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.dkit.oop.controllers;
 
+import com.dkit.oop.dao.CachingStudentDAO;
+import com.dkit.oop.dao.ColumnarStudentDAO;
+import com.dkit.oop.dao.ConcurrentStudentDAO;
+import com.dkit.oop.dao.DurableStudentDAO;
+import com.dkit.oop.dao.JdbcStudentDAO;
 import com.dkit.oop.dao.StudentDAO;
 import com.dkit.oop.dao.StudentDAOImpl;
+import com.dkit.oop.dao.StudentStatistics;
+import com.dkit.oop.models.AgeClock;
 import com.dkit.oop.models.Student;
 import com.dkit.oop.utils.JsonUtils;
 import com.dkit.oop.utils.StudentComparator;
+import com.dkit.oop.utils.StudentCsvImporter;
+import com.dkit.oop.utils.TopK;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 /**
  * Controller class for managing student operations
@@ -18,9 +31,60 @@ public class StudentController {
     
     private final StudentDAO studentDAO;
     
+    // Where the DAO-specific queries go: the DAO behind any decorators
+    private final StudentDAO queryDAO;
+    
+    // Bumped after every write, so cached results can tell they are stale
+    private final AtomicLong version;
+    
     public StudentController() {
-        this.studentDAO = new StudentDAOImpl();
-        initializeSampleData();
+        this(new StudentDAOImpl());
+    }
+    
+    /**
+     * Create a controller backed by a specific DAO implementation
+     * The sample students are added only to in-memory DAOs; a persistent one
+     * keeps whatever it held, including the deletion of a sample student.
+     * @param studentDAO the DAO to use, e.g. ConcurrentStudentDAO when shared between threads
+     */
+    public StudentController(StudentDAO studentDAO) {
+        this.studentDAO = studentDAO;
+        this.queryDAO = undecorated(studentDAO);
+        this.version = new AtomicLong();
+        if (!isPersistent(studentDAO)) {
+            initializeSampleData();
+        }
+    }
+    
+    /**
+     * True if the DAO, or one it decorates, keeps students across restarts
+     */
+    private static boolean isPersistent(StudentDAO studentDAO) {
+        while (true) {
+            if (studentDAO instanceof DurableStudentDAO || studentDAO instanceof JdbcStudentDAO) {
+                return true;
+            } else if (studentDAO instanceof CachingStudentDAO) {
+                studentDAO = ((CachingStudentDAO) studentDAO).getDelegate();
+            } else {
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Unwrap DurableStudentDAO and CachingStudentDAO, which only add to the
+     * basic DAO operations, to reach the DAO that serves the other queries
+     */
+    private static StudentDAO undecorated(StudentDAO studentDAO) {
+        while (true) {
+            if (studentDAO instanceof DurableStudentDAO) {
+                studentDAO = ((DurableStudentDAO) studentDAO).getDelegate();
+            } else if (studentDAO instanceof CachingStudentDAO) {
+                studentDAO = ((CachingStudentDAO) studentDAO).getDelegate();
+            } else {
+                return studentDAO;
+            }
+        }
     }
     
     /**
@@ -62,9 +126,36 @@ public class StudentController {
         } catch (IllegalArgumentException e) {
             System.err.println("Error adding student: " + e.getMessage());
             return false;
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Add several students in one call to the DAO
+     * @param students the students to add
+     * @return one result per student, in list order: true if it was added
+     */
+    public boolean[] addStudents(List<Student> students) {
+        try {
+            return studentDAO.addAll(students);
+        } finally {
+            version.incrementAndGet();
         }
     }
     
+    /**
+     * Get the data version, which goes up after every write made through
+     * this controller, including failed and partial ones. Anything derived
+     * from the data is still current while the version has not changed,
+     * provided the version was read before the data was.
+     * Students changed through their own setters are not counted.
+     * @return the current version
+     */
+    public long getVersion() {
+        return version.get();
+    }
+    
     /**
      * Find a student by ID
      * @param studentId the student ID to search for
@@ -87,9 +178,40 @@ public class StudentController {
      * @return List of students sorted by GPA
      */
     public List<Student> getStudentsSortedByGpa() {
-        List<Student> students = studentDAO.getAllStudents();
-        students.sort(StudentComparator.BY_GPA_DESC);
-        return students;
+        // BY_GPA_DESC order, served from the DAO's GPA index instead of a fresh sort
+        return studentDAO.getStudentsSortedByGpa();
+    }
+    
+    /**
+     * Get the first k students in comparator order, without sorting them all
+     * @param comparator the order, best first; any comparator from StudentComparator works
+     * @param k the maximum number of students to return
+     * @param filter only students it accepts are considered; null accepts everyone
+     * @return the same students as sorting everyone and keeping the first k
+     */
+    public List<Student> getTopStudents(Comparator<Student> comparator, int k, Predicate<Student> filter) {
+        return TopK.select(studentDAO.getAllStudents(), comparator, k, filter);
+    }
+    
+    /**
+     * Parallel version of getTopStudents for large registries
+     * @param comparator the order, best first
+     * @param k the maximum number of students to return
+     * @param filter only students it accepts are considered; null accepts everyone
+     * @return the same students as getTopStudents
+     */
+    public List<Student> getTopStudentsParallel(Comparator<Student> comparator, int k, Predicate<Student> filter) {
+        return TopK.parallelSelect(studentDAO.getAllStudents(), comparator, k, filter);
+    }
+    
+    /**
+     * Get a course leaderboard: its k students with the highest GPA
+     * @param course the course, matched ignoring case
+     * @param k the maximum number of students to return
+     * @return the top students, highest GPA first
+     */
+    public List<Student> getTopStudentsInCourse(String course, int k) {
+        return TopK.select(studentDAO.findStudentsByCourse(course), StudentComparator.BY_GPA_DESC, k, null);
     }
     
     /**
@@ -98,7 +220,7 @@ public class StudentController {
      */
     public List<Student> getStudentsSortedByName() {
         List<Student> students = studentDAO.getAllStudents();
-        students.sort(StudentComparator.BY_NAME);
+        StudentComparator.sort(students, StudentComparator.BY_NAME);
         return students;
     }
     
@@ -134,8 +256,17 @@ public class StudentController {
      * @return List of matching students
      */
     public List<Student> searchStudentsByName(String searchTerm) {
-        if (studentDAO instanceof StudentDAOImpl) {
-            return ((StudentDAOImpl) studentDAO).searchStudentsByName(searchTerm);
+        if (queryDAO instanceof StudentDAOImpl) {
+            return ((StudentDAOImpl) queryDAO).searchStudentsByName(searchTerm);
+        }
+        if (queryDAO instanceof ConcurrentStudentDAO) {
+            return ((ConcurrentStudentDAO) queryDAO).searchStudentsByName(searchTerm);
+        }
+        if (queryDAO instanceof ColumnarStudentDAO) {
+            return ((ColumnarStudentDAO) queryDAO).searchStudentsByName(searchTerm);
+        }
+        if (queryDAO instanceof JdbcStudentDAO) {
+            return ((JdbcStudentDAO) queryDAO).searchStudentsByName(searchTerm);
         }
         return new java.util.ArrayList<>();
     }
@@ -146,7 +277,11 @@ public class StudentController {
      * @return true if successful, false otherwise
      */
     public boolean updateStudent(Student student) {
-        return studentDAO.updateStudent(student);
+        try {
+            return studentDAO.updateStudent(student);
+        } finally {
+            version.incrementAndGet();
+        }
     }
     
     /**
@@ -155,7 +290,37 @@ public class StudentController {
      * @return true if successful, false otherwise
      */
     public boolean deleteStudent(String studentId) {
-        return studentDAO.deleteStudent(studentId);
+        try {
+            return studentDAO.deleteStudent(studentId);
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Update several students in one call to the DAO
+     * @param students the students to update
+     * @return one result per student, in list order: true if it was updated
+     */
+    public boolean[] updateStudents(List<Student> students) {
+        try {
+            return studentDAO.updateAll(students);
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Delete several students in one call to the DAO
+     * @param studentIds the student IDs to delete
+     * @return one result per ID, in list order: true if a student was deleted
+     */
+    public boolean[] deleteStudents(List<String> studentIds) {
+        try {
+            return studentDAO.deleteAll(studentIds);
+        } finally {
+            version.incrementAndGet();
+        }
     }
     
     /**
@@ -163,22 +328,34 @@ public class StudentController {
      * @return String containing statistics
      */
     public String getStudentStatistics() {
-        List<Student> students = studentDAO.getAllStudents();
-        if (students.isEmpty()) {
+        StudentStatistics statistics = getStatistics();
+        if (statistics.getTotalStudents() == 0) {
             return "No students found.";
         }
         
-        double averageGpa = students.stream()
-                .mapToDouble(Student::getGpa)
-                .average()
-                .orElse(0.0);
-        
-        long honorsCount = students.stream()
-                .filter(Student::isHonorsStudent)
-                .count();
-        
         return String.format("Total Students: %d\nAverage GPA: %.2f\nHonors Students: %d", 
-                           students.size(), averageGpa, honorsCount);
+                           statistics.getTotalStudents(), statistics.getAverageGpa(), 
+                           statistics.getHonorsCount());
+    }
+    
+    /**
+     * Get student statistics as a snapshot object
+     * @return the statistics, from running totals when the DAO keeps them
+     */
+    public StudentStatistics getStatistics() {
+        if (queryDAO instanceof StudentDAOImpl) {
+            return ((StudentDAOImpl) queryDAO).getStatistics();
+        }
+        if (queryDAO instanceof ConcurrentStudentDAO) {
+            return ((ConcurrentStudentDAO) queryDAO).getStatistics();
+        }
+        if (queryDAO instanceof ColumnarStudentDAO) {
+            return ((ColumnarStudentDAO) queryDAO).getStatistics();
+        }
+        if (queryDAO instanceof JdbcStudentDAO) {
+            return ((JdbcStudentDAO) queryDAO).getStatistics();
+        }
+        return StudentStatistics.of(studentDAO.getAllStudents());
     }
     
     /**
@@ -197,13 +374,38 @@ public class StudentController {
         }
     }
     
+    /**
+     * Import students from a CSV file, streaming it through the DAO in batches
+     * @param filePath the file path to import from
+     * @return counts of imported and rejected rows, or null if the file could not be read
+     */
+    public StudentCsvImporter.ImportResult importStudentsFromCsv(String filePath) {
+        try {
+            return new StudentCsvImporter(studentDAO).importFile(filePath);
+        } catch (IOException e) {
+            System.err.println("Error importing students: " + e.getMessage());
+            return null;
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+    
     /**
      * Get students grouped by course
      * @return Map of course name to list of students
      */
     public java.util.Map<String, List<Student>> getStudentsGroupedByCourse() {
-        if (studentDAO instanceof StudentDAOImpl) {
-            return ((StudentDAOImpl) studentDAO).getStudentsGroupedByCourse();
+        if (queryDAO instanceof StudentDAOImpl) {
+            return ((StudentDAOImpl) queryDAO).getStudentsGroupedByCourse();
+        }
+        if (queryDAO instanceof ConcurrentStudentDAO) {
+            return ((ConcurrentStudentDAO) queryDAO).getStudentsGroupedByCourse();
+        }
+        if (queryDAO instanceof ColumnarStudentDAO) {
+            return ((ColumnarStudentDAO) queryDAO).getStudentsGroupedByCourse();
+        }
+        if (queryDAO instanceof JdbcStudentDAO) {
+            return ((JdbcStudentDAO) queryDAO).getStudentsGroupedByCourse();
         }
         return new java.util.HashMap<>();
     }
@@ -213,9 +415,29 @@ public class StudentController {
      * @return Map of year to list of students
      */
     public java.util.Map<Integer, List<Student>> getStudentsGroupedByYear() {
-        if (studentDAO instanceof StudentDAOImpl) {
-            return ((StudentDAOImpl) studentDAO).getStudentsGroupedByYear();
+        if (queryDAO instanceof StudentDAOImpl) {
+            return ((StudentDAOImpl) queryDAO).getStudentsGroupedByYear();
+        }
+        if (queryDAO instanceof ConcurrentStudentDAO) {
+            return ((ConcurrentStudentDAO) queryDAO).getStudentsGroupedByYear();
+        }
+        if (queryDAO instanceof ColumnarStudentDAO) {
+            return ((ColumnarStudentDAO) queryDAO).getStudentsGroupedByYear();
+        }
+        if (queryDAO instanceof JdbcStudentDAO) {
+            return ((JdbcStudentDAO) queryDAO).getStudentsGroupedByYear();
         }
         return new java.util.HashMap<>();
     }
+    
+    /**
+     * Get the number of students in each age band
+     * @return Map of age band to count, youngest band first
+     */
+    public java.util.Map<String, Long> getAgeDistribution() {
+        if (queryDAO instanceof ColumnarStudentDAO) {
+            return ((ColumnarStudentDAO) queryDAO).getAgeDistribution();
+        }
+        return AgeClock.getAgeDistribution(studentDAO.getAllStudents());
+    }
 }
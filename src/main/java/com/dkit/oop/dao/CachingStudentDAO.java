@@ -0,0 +1,502 @@
+package com.dkit.oop.dao;
+
+import com.dkit.oop.models.Student;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of findStudentById in front of a slower StudentDAO
+ * Demonstrates the decorator pattern, segmented LRU eviction and single-flight loading
+ *
+ * Lookups by ID are answered from a bounded cache and go to the wrapped DAO
+ * only on a miss. IDs the DAO does not know are cached too, as negative
+ * entries, so repeated lookups of a missing ID cost nothing either. Every
+ * write through this DAO invalidates the IDs it touched after the delegate
+ * has applied it; other queries always go straight to the delegate.
+ *
+ * The cache is split by ID hash into shards, each with its own lock and a
+ * segmented LRU: new entries start in a probation segment and move to a
+ * protected segment, at most 80% of the shard, when they are hit again.
+ * Eviction takes the least recently used probation entry first, so a scan
+ * over many IDs that are read only once cannot flush the frequently read
+ * ones. Entries can also expire a fixed time after they were loaded, which
+ * bounds how long a change made behind this DAO's back stays invisible.
+ *
+ * Concurrent misses on one ID share a single delegate call: the first
+ * caller loads, the others wait for its result. A write to an ID while it
+ * is being loaded stops that result from being cached, since it may have
+ * been read before the write.
+ *
+ * Cached students are shared between callers, as with the in-memory DAOs;
+ * change a student through updateStudent, not its setters.
+ */
+public class CachingStudentDAO implements StudentDAO {
+    
+    public static final int DEFAULT_MAXIMUM_SIZE = 100_000;
+    
+    // Share of each shard that students hit at least twice may hold
+    private static final double PROTECTED_SHARE = 0.8;
+    private static final int MAX_SHARDS = 16;
+    private static final int MIN_SHARD_SIZE = 128;
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+    
+    private final StudentDAO delegate;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Shard[] shards;
+    
+    private final LongAdder hits;
+    private final LongAdder negativeHits;
+    private final LongAdder misses;
+    private final LongAdder loads;
+    private final LongAdder loadFailures;
+    private final LongAdder loadNanos;
+    private final AtomicLong maxLoadNanos;
+    
+    /**
+     * Cache up to maximumSize IDs, without expiry
+     */
+    public CachingStudentDAO(StudentDAO delegate, int maximumSize) {
+        this(delegate, maximumSize, 0, 0);
+    }
+    
+    /**
+     * @param delegate the DAO to load from and write through to
+     * @param maximumSize the most IDs cached, found or not
+     * @param ttlMillis how long a found student stays cached; 0 for no limit
+     * @param negativeTtlMillis how long an ID that was not found stays cached; 0 for no limit
+     */
+    public CachingStudentDAO(StudentDAO delegate, int maximumSize, long ttlMillis, long negativeTtlMillis) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        if (ttlMillis < 0 || negativeTtlMillis < 0) {
+            throw new IllegalArgumentException("Expiry times must not be negative");
+        }
+        this.delegate = delegate;
+        this.ttlNanos = ttlMillis == 0 ? NO_EXPIRY : TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.negativeTtlNanos = negativeTtlMillis == 0 ? NO_EXPIRY : TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        
+        int shardCount = 1;
+        while (shardCount < MAX_SHARDS && shardCount * 2 * MIN_SHARD_SIZE <= maximumSize) {
+            shardCount *= 2;
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            // Spread the remainder so the shard sizes add up to maximumSize
+            shards[i] = new Shard(maximumSize / shardCount + (i < maximumSize % shardCount ? 1 : 0));
+        }
+        
+        this.hits = new LongAdder();
+        this.negativeHits = new LongAdder();
+        this.misses = new LongAdder();
+        this.loads = new LongAdder();
+        this.loadFailures = new LongAdder();
+        this.loadNanos = new LongAdder();
+        this.maxLoadNanos = new AtomicLong();
+    }
+    
+    @Override
+    public Optional<Student> findStudentById(String studentId) {
+        if (studentId == null || studentId.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        Shard shard = shardFor(studentId);
+        long now = System.nanoTime();
+        Load load;
+        boolean loader = false;
+        synchronized (shard) {
+            Entry entry = shard.get(studentId, now);
+            if (entry != null) {
+                hits.increment();
+                if (entry.student == null) {
+                    negativeHits.increment();
+                }
+                return Optional.ofNullable(entry.student);
+            }
+            misses.increment();
+            load = shard.loads.get(studentId);
+            if (load == null) {
+                load = new Load();
+                shard.loads.put(studentId, load);
+                loader = true;
+            }
+        }
+        return Optional.ofNullable(loader ? load(shard, studentId, load) : await(load));
+    }
+    
+    @Override
+    public boolean addStudent(Student student) {
+        try {
+            return delegate.addStudent(student);
+        } finally {
+            invalidate(student);
+        }
+    }
+    
+    @Override
+    public boolean updateStudent(Student student) {
+        try {
+            return delegate.updateStudent(student);
+        } finally {
+            invalidate(student);
+        }
+    }
+    
+    @Override
+    public boolean deleteStudent(String studentId) {
+        try {
+            return delegate.deleteStudent(studentId);
+        } finally {
+            invalidate(studentId);
+        }
+    }
+    
+    @Override
+    public boolean[] addAll(Collection<Student> students) {
+        try {
+            return delegate.addAll(students);
+        } finally {
+            students.forEach(this::invalidate);
+        }
+    }
+    
+    @Override
+    public boolean[] updateAll(Collection<Student> students) {
+        try {
+            return delegate.updateAll(students);
+        } finally {
+            students.forEach(this::invalidate);
+        }
+    }
+    
+    @Override
+    public boolean[] deleteAll(Collection<String> studentIds) {
+        try {
+            return delegate.deleteAll(studentIds);
+        } finally {
+            studentIds.forEach(this::invalidate);
+        }
+    }
+    
+    @Override
+    public List<Student> findStudentsByCourse(String course) {
+        return delegate.findStudentsByCourse(course);
+    }
+    
+    @Override
+    public List<Student> findStudentsByYear(int year) {
+        return delegate.findStudentsByYear(year);
+    }
+    
+    @Override
+    public List<Student> getAllStudents() {
+        return delegate.getAllStudents();
+    }
+    
+    @Override
+    public int getStudentCount() {
+        return delegate.getStudentCount();
+    }
+    
+    @Override
+    public List<Student> findStudentsWithGpaAbove(double minGpa) {
+        return delegate.findStudentsWithGpaAbove(minGpa);
+    }
+    
+    @Override
+    public List<Student> getStudentsSortedByGpa() {
+        return delegate.getStudentsSortedByGpa();
+    }
+    
+    /**
+     * Drop one ID from the cache, e.g. after changing it behind this DAO's back
+     * @param studentId the ID to forget
+     */
+    public void invalidate(String studentId) {
+        if (studentId == null) {
+            return;
+        }
+        Shard shard = shardFor(studentId);
+        synchronized (shard) {
+            shard.remove(studentId);
+            // A load already running may have read the old student; let it finish uncached
+            shard.loads.remove(studentId);
+        }
+    }
+    
+    /**
+     * Drop every cached ID; the counters are kept
+     */
+    public void invalidateAll() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.probation.clear();
+                shard.protectedEntries.clear();
+                shard.loads.clear();
+            }
+        }
+    }
+    
+    /**
+     * @return the DAO lookups are loaded from
+     */
+    public StudentDAO getDelegate() {
+        return delegate;
+    }
+    
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    /**
+     * @return hits on IDs cached as not found; included in getHitCount
+     */
+    public long getNegativeHitCount() {
+        return negativeHits.sum();
+    }
+    
+    /**
+     * @return lookups not answered from the cache, including those that waited for another caller's load
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    /**
+     * @return hits as a share of all lookups, or 1.0 before the first lookup
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 1.0 : (double) hitCount / total;
+    }
+    
+    /**
+     * @return calls made to the delegate's findStudentById
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+    
+    public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+    
+    /**
+     * @return mean time of a delegate lookup in milliseconds, or 0 before the first
+     */
+    public double getAverageLoadMillis() {
+        long count = loads.sum();
+        return count == 0 ? 0.0 : loadNanos.sum() / 1e6 / count;
+    }
+    
+    public double getMaxLoadMillis() {
+        return maxLoadNanos.get() / 1e6;
+    }
+    
+    /**
+     * @return entries dropped to stay within the maximum size
+     */
+    public long getEvictionCount() {
+        long evictions = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                evictions += shard.evictions;
+            }
+        }
+        return evictions;
+    }
+    
+    /**
+     * @return IDs cached now, including expired entries not yet looked up again
+     */
+    public int getSize() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.probation.size() + shard.protectedEntries.size();
+            }
+        }
+        return size;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("CachingStudentDAO{size=%d, hitRatio=%.3f, hits=%d, negativeHits=%d, misses=%d,"
+                + " loads=%d, loadFailures=%d, averageLoadMillis=%.3f, maxLoadMillis=%.3f, evictions=%d}",
+                getSize(), getHitRatio(), getHitCount(), getNegativeHitCount(), getMissCount(), getLoadCount(),
+                getLoadFailureCount(), getAverageLoadMillis(), getMaxLoadMillis(), getEvictionCount());
+    }
+    
+    private void invalidate(Student student) {
+        if (student != null) {
+            invalidate(student.getStudentId());
+        }
+    }
+    
+    /**
+     * Call the delegate for a load this thread owns, cache the result unless
+     * a write invalidated it meanwhile, and hand it to any waiting callers
+     */
+    private Student load(Shard shard, String studentId, Load load) {
+        loads.increment();
+        long start = System.nanoTime();
+        Student student;
+        try {
+            student = delegate.findStudentById(studentId).orElse(null);
+        } catch (RuntimeException | Error e) {
+            loadFailures.increment();
+            synchronized (shard) {
+                shard.loads.remove(studentId, load);
+            }
+            load.result.completeExceptionally(e);
+            throw e;
+        }
+        long end = System.nanoTime();
+        loadNanos.add(end - start);
+        maxLoadNanos.accumulateAndGet(end - start, Math::max);
+        
+        long ttl = student != null ? ttlNanos : negativeTtlNanos;
+        synchronized (shard) {
+            if (shard.loads.remove(studentId, load)) {
+                shard.put(studentId, new Entry(student, ttl == NO_EXPIRY ? NO_EXPIRY : end + ttl));
+            }
+        }
+        load.result.complete(student);
+        return student;
+    }
+    
+    private static Student await(Load load) {
+        try {
+            return load.result.join();
+        } catch (CompletionException e) {
+            // Rethrow what the loading thread's delegate call threw
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    private Shard shardFor(String studentId) {
+        int hash = studentId.hashCode();
+        return shards[(hash ^ hash >>> 16) & (shards.length - 1)];
+    }
+    
+    /**
+     * One lock's worth of the cache: a segmented LRU plus the loads in progress
+     * All methods are called with the shard locked.
+     */
+    private static final class Shard {
+        
+        private final int capacity;
+        private final int protectedCapacity;
+        // Access-ordered, least recently used first
+        private final LinkedHashMap<String, Entry> probation;
+        private final LinkedHashMap<String, Entry> protectedEntries;
+        private final Map<String, Load> loads;
+        private long evictions;
+        
+        Shard(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = (int) (capacity * PROTECTED_SHARE);
+            this.probation = new LinkedHashMap<>(16, 0.75f, true);
+            this.protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+            this.loads = new HashMap<>();
+        }
+        
+        /**
+         * Find a live entry, promoting it to the protected segment on its second hit
+         * @return the entry, or null if it is missing or has expired
+         */
+        Entry get(String studentId, long now) {
+            Entry entry = protectedEntries.get(studentId);
+            if (entry != null) {
+                if (entry.isExpired(now)) {
+                    protectedEntries.remove(studentId);
+                    return null;
+                }
+                return entry;
+            }
+            entry = probation.remove(studentId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(now)) {
+                return null;
+            }
+            if (protectedCapacity == 0) {
+                probation.put(studentId, entry);
+                return entry;
+            }
+            protectedEntries.put(studentId, entry);
+            if (protectedEntries.size() > protectedCapacity) {
+                // Demote the least recently used protected entry; it gets another chance in probation
+                Iterator<Map.Entry<String, Entry>> eldest = protectedEntries.entrySet().iterator();
+                Map.Entry<String, Entry> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+            return entry;
+        }
+        
+        void put(String studentId, Entry entry) {
+            protectedEntries.remove(studentId);
+            probation.put(studentId, entry);
+            while (probation.size() + protectedEntries.size() > capacity) {
+                Map<String, Entry> victims = probation.isEmpty() ? protectedEntries : probation;
+                Iterator<String> eldest = victims.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions++;
+            }
+        }
+        
+        void remove(String studentId) {
+            if (probation.remove(studentId) == null) {
+                protectedEntries.remove(studentId);
+            }
+        }
+    }
+    
+    /**
+     * A cached lookup result; a null student means the ID was not found
+     */
+    private static final class Entry {
+        
+        private final Student student;
+        private final long expiresAt;
+        
+        Entry(Student student, long expiresAt) {
+            this.student = student;
+            this.expiresAt = expiresAt;
+        }
+        
+        boolean isExpired(long now) {
+            return expiresAt != NO_EXPIRY && now - expiresAt >= 0;
+        }
+    }
+    
+    /**
+     * A delegate lookup in progress, which concurrent misses on the same ID wait for
+     */
+    private static final class Load {
+        
+        private final CompletableFuture<Student> result = new CompletableFuture<>();
+    }
+}
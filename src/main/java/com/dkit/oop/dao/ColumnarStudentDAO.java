@@ -0,0 +1,534 @@
+package com.dkit.oop.dao;
+
+import com.dkit.oop.models.AgeClock;
+import com.dkit.oop.models.Student;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Column-oriented implementation of StudentDAO for analytics
+ * Demonstrates primitive arrays and dictionary encoding as an alternative to object graphs
+ *
+ * Each field lives in its own array, indexed by row: GPA in a double[],
+ * year of study in a byte[], the date of birth as an epoch day in an int[]
+ * and the course as an int code into a dictionary of distinct course
+ * names. Filters and statistics are plain loops over these arrays, so they
+ * never touch a Student, a boxed number or a LocalDate.
+ *
+ * Students are rebuilt from the columns only when a query returns them,
+ * which means callers get copies: changing a returned Student does not
+ * change the stored one, and updateStudent must be used instead.
+ *
+ * Rows are kept in insertion order. Deleting a student leaves a hole,
+ * marked by year 0, and holes are squeezed out when the arrays would
+ * otherwise have to grow, as in StudentDAOImpl.
+ */
+public class ColumnarStudentDAO implements StudentDAO {
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    // Year value marking a deleted row; real years start at Student.MIN_YEAR
+    private static final byte DELETED = 0;
+    
+    // Course code for a student with no course
+    private static final int NO_COURSE = -1;
+    
+    // Epoch day for a student with no date of birth
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    
+    // Row number of each stored student ID
+    private final Map<String, Integer> rowsById;
+    
+    // Numeric columns, scanned by queries
+    private double[] gpas;
+    private byte[] years;
+    private int[] courseCodes;
+    private int[] birthDays;
+    
+    // Text columns, only read to rebuild Students
+    private String[] studentIds;
+    private String[] firstNames;
+    private String[] lastNames;
+    private String[] emails;
+    
+    // Course dictionary: code -> name, name -> code, and code -> case-folded name
+    private final List<String> courseNames;
+    private final Map<String, Integer> courseCodesByName;
+    private final List<String> courseKeys;
+    
+    private int rowCount;
+    private int deletedRows;
+    
+    public ColumnarStudentDAO() {
+        this.rowsById = new HashMap<>();
+        this.gpas = new double[INITIAL_CAPACITY];
+        this.years = new byte[INITIAL_CAPACITY];
+        this.courseCodes = new int[INITIAL_CAPACITY];
+        this.birthDays = new int[INITIAL_CAPACITY];
+        this.studentIds = new String[INITIAL_CAPACITY];
+        this.firstNames = new String[INITIAL_CAPACITY];
+        this.lastNames = new String[INITIAL_CAPACITY];
+        this.emails = new String[INITIAL_CAPACITY];
+        this.courseNames = new ArrayList<>();
+        this.courseCodesByName = new HashMap<>();
+        this.courseKeys = new ArrayList<>();
+        this.rowCount = 0;
+        this.deletedRows = 0;
+    }
+    
+    /**
+     * Add a student. Dates of birth must be within int epoch-day range,
+     * which covers roughly five million years either side of 1970.
+     */
+    @Override
+    public boolean addStudent(Student student) {
+        if (student == null || student.getStudentId() == null || student.getStudentId().trim().isEmpty()) {
+            return false;
+        }
+        
+        // Check if student already exists
+        if (rowsById.containsKey(student.getStudentId()) || !hasStorableDate(student)) {
+            return false;
+        }
+        
+        append(student);
+        return true;
+    }
+    
+    @Override
+    public Optional<Student> findStudentById(String studentId) {
+        if (studentId == null || studentId.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        
+        Integer row = rowsById.get(studentId);
+        return row == null ? Optional.empty() : Optional.of(materialize(row));
+    }
+    
+    @Override
+    public List<Student> findStudentsByCourse(String course) {
+        if (course == null || course.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // Resolve the name against the small dictionary, then scan codes only
+        String key = courseKey(course);
+        boolean[] matchingCodes = new boolean[courseNames.size()];
+        boolean anyMatch = false;
+        for (int code = 0; code < matchingCodes.length; code++) {
+            if (courseKeys.get(code).equals(key)) {
+                matchingCodes[code] = true;
+                anyMatch = true;
+            }
+        }
+        if (!anyMatch) {
+            return new ArrayList<>();
+        }
+        
+        List<Student> result = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            int code = courseCodes[row];
+            if (code != NO_COURSE && years[row] != DELETED && matchingCodes[code]) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public List<Student> findStudentsByYear(int year) {
+        if (year < Student.MIN_YEAR || year > Student.MAX_YEAR) {
+            return new ArrayList<>();
+        }
+        
+        List<Student> result = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            if (years[row] == year) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public List<Student> getAllStudents() {
+        List<Student> result = new ArrayList<>(rowsById.size());
+        for (int row = 0; row < rowCount; row++) {
+            if (years[row] != DELETED) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public boolean updateStudent(Student student) {
+        if (student == null || student.getStudentId() == null || student.getStudentId().trim().isEmpty()) {
+            return false;
+        }
+        
+        // Check if student exists
+        Integer row = rowsById.get(student.getStudentId());
+        if (row == null || !hasStorableDate(student)) {
+            return false;
+        }
+        
+        // Updated students move to the end of the ordering, as in StudentDAOImpl
+        delete(row);
+        append(student);
+        return true;
+    }
+    
+    @Override
+    public boolean deleteStudent(String studentId) {
+        if (studentId == null || studentId.trim().isEmpty()) {
+            return false;
+        }
+        
+        Integer row = rowsById.get(studentId);
+        if (row == null) {
+            return false;
+        }
+        delete(row);
+        return true;
+    }
+    
+    @Override
+    public int getStudentCount() {
+        return rowsById.size();
+    }
+    
+    @Override
+    public List<Student> findStudentsWithGpaAbove(double minGpa) {
+        if (minGpa < Student.MIN_GPA || minGpa > Student.MAX_GPA) {
+            return new ArrayList<>();
+        }
+        
+        List<Student> result = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            if (gpas[row] >= minGpa && years[row] != DELETED) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public List<Student> getStudentsSortedByGpa() {
+        int[] rows = liveRows();
+        sortByGpaDescending(rows);
+        
+        List<Student> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(materialize(row));
+        }
+        return result;
+    }
+    
+    // Analytics over the columns
+    
+    /**
+     * Get average GPA for all students
+     * @return average GPA
+     */
+    public double getAverageGpa() {
+        return getStatistics().getAverageGpa();
+    }
+    
+    /**
+     * Get statistics in one pass over the numeric columns
+     * Sums GPA in hundredths, exactly as StudentAggregates does, so the
+     * result matches the other DAOs.
+     * @return snapshot of the current statistics
+     */
+    public StudentStatistics getStatistics() {
+        long count = 0;
+        long gpaHundredthsSum = 0;
+        long honorsCount = 0;
+        long warningCount = 0;
+        long[] countsByCode = new long[courseNames.size()];
+        long[] countsByYear = new long[Student.MAX_YEAR + 1];
+        
+        for (int row = 0; row < rowCount; row++) {
+            int year = years[row];
+            if (year == DELETED) {
+                continue;
+            }
+            double gpa = gpas[row];
+            count++;
+            gpaHundredthsSum += Math.round(gpa * 100);
+            honorsCount += gpa >= StudentAggregates.HONORS_GPA ? 1 : 0;
+            warningCount += gpa < StudentAggregates.WARNING_GPA ? 1 : 0;
+            countsByYear[year]++;
+            int code = courseCodes[row];
+            if (code != NO_COURSE) {
+                countsByCode[code]++;
+            }
+        }
+        
+        Map<String, Long> courseCounts = new HashMap<>();
+        for (int code = 0; code < countsByCode.length; code++) {
+            if (countsByCode[code] > 0) {
+                courseCounts.put(courseNames.get(code), countsByCode[code]);
+            }
+        }
+        Map<Integer, Long> yearCounts = new HashMap<>();
+        for (int year = Student.MIN_YEAR; year <= Student.MAX_YEAR; year++) {
+            if (countsByYear[year] > 0) {
+                yearCounts.put(year, countsByYear[year]);
+            }
+        }
+        
+        double averageGpa = count == 0 ? 0.0 : gpaHundredthsSum / 100.0 / count;
+        return new StudentStatistics(count, averageGpa, honorsCount, warningCount, courseCounts, yearCounts);
+    }
+    
+    /**
+     * Get students with honors status
+     * @return List of honors students
+     */
+    public List<Student> getHonorsStudents() {
+        return findStudentsWithGpaAbove(StudentAggregates.HONORS_GPA);
+    }
+    
+    /**
+     * Get students grouped by course
+     * @return Map of course name to list of students
+     */
+    public Map<String, List<Student>> getStudentsGroupedByCourse() {
+        return getAllStudents().stream()
+                .collect(Collectors.groupingBy(Student::getCourse));
+    }
+    
+    /**
+     * Get students grouped by year of study
+     * @return Map of year to list of students
+     */
+    public Map<Integer, List<Student>> getStudentsGroupedByYear() {
+        return getAllStudents().stream()
+                .collect(Collectors.groupingBy(Student::getYearOfStudy));
+    }
+    
+    /**
+     * Count students by age band, comparing the epoch-day column against
+     * the latest birth date for each band boundary
+     * @return counts for each of AgeClock.AGE_GROUPS, youngest first
+     */
+    public Map<String, Long> getAgeDistribution() {
+        // A student is older than a band's limit exactly when born on or before its cutoff
+        int[] cutoffs = new int[AgeClock.AGE_GROUPS.length - 1];
+        for (int i = 0; i < cutoffs.length; i++) {
+            int firstAgeOfNextGroup = firstAgeOfGroup(i + 1);
+            cutoffs[i] = (int) AgeClock.latestBirthDateForAge(firstAgeOfNextGroup).toEpochDay();
+        }
+        
+        long[] counts = new long[AgeClock.AGE_GROUPS.length];
+        for (int row = 0; row < rowCount; row++) {
+            if (years[row] == DELETED) {
+                continue;
+            }
+            int birthDay = birthDays[row];
+            if (birthDay == NO_DATE) {
+                throw new NullPointerException("Student " + studentIds[row] + " has no date of birth");
+            }
+            int group = 0;
+            while (group < cutoffs.length && birthDay <= cutoffs[group]) {
+                group++;
+            }
+            counts[group]++;
+        }
+        return AgeClock.toDistribution(counts);
+    }
+    
+    private static int firstAgeOfGroup(int group) {
+        int age = 0;
+        while (AgeClock.ageGroup(age) < group) {
+            age++;
+        }
+        return age;
+    }
+    
+    /**
+     * Search students by name (case-insensitive)
+     * There is no name index here; each stored full name is checked in turn.
+     * @param searchTerm the search term
+     * @return List of matching students
+     */
+    public List<Student> searchStudentsByName(String searchTerm) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        String lowerSearchTerm = searchTerm.toLowerCase();
+        List<Student> result = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            if (years[row] != DELETED
+                    && (firstNames[row] + " " + lastNames[row]).toLowerCase().contains(lowerSearchTerm)) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+    
+    // Row storage
+    
+    private void append(Student student) {
+        if (rowCount == years.length) {
+            growOrCompact();
+        }
+        
+        int row = rowCount++;
+        gpas[row] = student.getGpa();
+        years[row] = (byte) student.getYearOfStudy();
+        courseCodes[row] = courseCode(student.getCourse());
+        LocalDate dateOfBirth = student.getDateOfBirth();
+        birthDays[row] = dateOfBirth == null ? NO_DATE : (int) dateOfBirth.toEpochDay();
+        studentIds[row] = student.getStudentId();
+        firstNames[row] = student.getFirstName();
+        lastNames[row] = student.getLastName();
+        emails[row] = student.getEmail();
+        rowsById.put(student.getStudentId(), row);
+    }
+    
+    private void delete(int row) {
+        rowsById.remove(studentIds[row]);
+        years[row] = DELETED;
+        studentIds[row] = null;
+        firstNames[row] = null;
+        lastNames[row] = null;
+        emails[row] = null;
+        deletedRows++;
+    }
+    
+    /**
+     * Build a Student from one row of the columns
+     */
+    private Student materialize(int row) {
+        int birthDay = birthDays[row];
+        int code = courseCodes[row];
+        return new Student(firstNames[row], lastNames[row],
+                           birthDay == NO_DATE ? null : LocalDate.ofEpochDay(birthDay),
+                           emails[row], studentIds[row],
+                           code == NO_COURSE ? null : courseNames.get(code),
+                           years[row], gpas[row]);
+    }
+    
+    /**
+     * Make room for one more row. If at least half the rows are deleted the
+     * live ones are slid down in place, otherwise every column doubles.
+     */
+    private void growOrCompact() {
+        if (deletedRows >= rowCount / 2 && deletedRows > 0) {
+            int live = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (years[row] != DELETED) {
+                    moveRow(row, live);
+                    rowsById.put(studentIds[live], live);
+                    live++;
+                }
+            }
+            Arrays.fill(studentIds, live, rowCount, null);
+            Arrays.fill(firstNames, live, rowCount, null);
+            Arrays.fill(lastNames, live, rowCount, null);
+            Arrays.fill(emails, live, rowCount, null);
+            rowCount = live;
+            deletedRows = 0;
+        } else {
+            int capacity = years.length * 2;
+            gpas = Arrays.copyOf(gpas, capacity);
+            years = Arrays.copyOf(years, capacity);
+            courseCodes = Arrays.copyOf(courseCodes, capacity);
+            birthDays = Arrays.copyOf(birthDays, capacity);
+            studentIds = Arrays.copyOf(studentIds, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            emails = Arrays.copyOf(emails, capacity);
+        }
+    }
+    
+    private void moveRow(int from, int to) {
+        gpas[to] = gpas[from];
+        years[to] = years[from];
+        courseCodes[to] = courseCodes[from];
+        birthDays[to] = birthDays[from];
+        studentIds[to] = studentIds[from];
+        firstNames[to] = firstNames[from];
+        lastNames[to] = lastNames[from];
+        emails[to] = emails[from];
+    }
+    
+    private int[] liveRows() {
+        int[] rows = new int[rowsById.size()];
+        int count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (years[row] != DELETED) {
+                rows[count++] = row;
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Stable merge sort of row numbers by GPA, highest first. The rows come
+     * in ascending order, so ties stay in insertion order like Student.compareTo
+     * with a stable sort.
+     */
+    private void sortByGpaDescending(int[] rows) {
+        int[] buffer = new int[rows.length];
+        for (int width = 1; width < rows.length; width *= 2) {
+            for (int start = 0; start < rows.length; start += 2 * width) {
+                int middle = Math.min(start + width, rows.length);
+                int end = Math.min(start + 2 * width, rows.length);
+                int left = start;
+                int right = middle;
+                int out = start;
+                while (left < middle && right < end) {
+                    // Take from the right only when it is strictly higher, keeping ties stable
+                    buffer[out++] = Double.compare(gpas[rows[right]], gpas[rows[left]]) > 0
+                            ? rows[right++] : rows[left++];
+                }
+                while (left < middle) {
+                    buffer[out++] = rows[left++];
+                }
+                while (right < end) {
+                    buffer[out++] = rows[right++];
+                }
+            }
+            System.arraycopy(buffer, 0, rows, 0, rows.length);
+        }
+    }
+    
+    // Course dictionary
+    
+    private int courseCode(String course) {
+        if (course == null) {
+            return NO_COURSE;
+        }
+        
+        Integer code = courseCodesByName.get(course);
+        if (code == null) {
+            code = courseNames.size();
+            courseNames.add(course);
+            courseKeys.add(courseKey(course));
+            courseCodesByName.put(course, code);
+        }
+        return code;
+    }
+    
+    /**
+     * Case-fold a course name so lookups match equalsIgnoreCase
+     */
+    private static String courseKey(String course) {
+        return course.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+    
+    private static boolean hasStorableDate(Student student) {
+        LocalDate dateOfBirth = student.getDateOfBirth();
+        if (dateOfBirth == null) {
+            return true;
+        }
+        long epochDay = dateOfBirth.toEpochDay();
+        return epochDay > NO_DATE && epochDay <= Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,622 @@
+package com.dkit.oop.dao;
+
+import com.dkit.oop.models.Student;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe implementation of StudentDAO for sharing between server threads
+ * Demonstrates concurrent collections and copy-on-write snapshots
+ *
+ * Writers are serialized by a lock, so add/update/delete are linearizable.
+ * Readers never take it. Every write publishes a new immutable Snapshot of
+ * the ordered, course, year and GPA indexes through a volatile field, and
+ * ordered and index scans run against whichever snapshot was current when
+ * they started, however long a batch of writes holds the lock.
+ *
+ * The snapshot's indexes are split into small sorted chunks, so a write
+ * copies one chunk of each index it touches plus the chunk table, not the
+ * whole index. ID lookups and name search use shared concurrent structures
+ * instead, and skip entries that are not part of the reader's snapshot;
+ * see Entry.isVisibleIn.
+ */
+public class ConcurrentStudentDAO implements StudentDAO {
+    
+    // Bulk writes let other writers in between runs of this many items
+    private static final int BATCH_LOCK_SIZE = 256;
+    
+    // ID lookups, holding each student's newest entry; the writer only
+    // removes an entry after publishing a snapshot without it
+    private final Map<String, Entry> studentsById;
+    
+    // Trigram index over lower-cased full names for searchStudentsByName,
+    // pruned the same way
+    private final NameSearchIndex<Entry> nameIndex;
+    
+    // Everything ordered and index scans read, replaced as a whole on every write
+    private volatile Snapshot snapshot;
+    
+    // Running totals, republished as an immutable snapshot after every write or batch
+    private final StudentAggregates aggregates;
+    private volatile StudentStatistics statistics;
+    
+    private final ReentrantLock writeLock;
+    private long nextSequence; // guarded by the write lock
+    
+    public ConcurrentStudentDAO() {
+        this.studentsById = new ConcurrentHashMap<>();
+        this.nameIndex = new NameSearchIndex<>(true);
+        this.snapshot = Snapshot.EMPTY;
+        this.aggregates = new StudentAggregates();
+        this.statistics = aggregates.snapshot();
+        this.writeLock = new ReentrantLock();
+        this.nextSequence = 0;
+    }
+    
+    @Override
+    public boolean addStudent(Student student) {
+        if (student == null || student.getStudentId() == null || student.getStudentId().trim().isEmpty()) {
+            return false;
+        }
+        
+        writeLock.lock();
+        try {
+            boolean added = addLocked(student);
+            publishStatistics();
+            return added;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public Optional<Student> findStudentById(String studentId) {
+        if (studentId == null || studentId.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        
+        while (true) {
+            Snapshot current = snapshot;
+            Entry entry = studentsById.get(studentId);
+            // An update in progress has already put its entry; fall back to the one it replaces
+            while (entry != null && entry.version > current.version) {
+                entry = entry.previous;
+            }
+            if (entry != null) {
+                return entry.isVisibleIn(current) ? Optional.of(entry.student) : Optional.empty();
+            }
+            if (current == snapshot) {
+                return Optional.empty();
+            }
+            // Writes since our snapshot dropped the entry it could see; look again in the newer one
+        }
+    }
+    
+    @Override
+    public List<Student> findStudentsByCourse(String course) {
+        if (course == null || course.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        return toStudents(snapshot.byCourse.get(courseKey(course)));
+    }
+    
+    @Override
+    public List<Student> findStudentsByYear(int year) {
+        if (year < Student.MIN_YEAR || year > Student.MAX_YEAR) {
+            return new ArrayList<>();
+        }
+        
+        return toStudents(snapshot.byYear.get(year));
+    }
+    
+    @Override
+    public List<Student> getAllStudents() {
+        return toStudents(snapshot.ordered);
+    }
+    
+    @Override
+    public boolean updateStudent(Student student) {
+        if (student == null || student.getStudentId() == null || student.getStudentId().trim().isEmpty()) {
+            return false;
+        }
+        
+        writeLock.lock();
+        try {
+            boolean updated = updateLocked(student);
+            publishStatistics();
+            return updated;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public boolean deleteStudent(String studentId) {
+        if (studentId == null || studentId.trim().isEmpty()) {
+            return false;
+        }
+        
+        writeLock.lock();
+        try {
+            boolean deleted = deleteLocked(studentId);
+            publishStatistics();
+            return deleted;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Add students under as few write lock acquisitions as possible,
+     * publishing the statistics once per run instead of once per student
+     */
+    @Override
+    public boolean[] addAll(Collection<Student> students) {
+        return writeAll(students, this::addLocked);
+    }
+    
+    @Override
+    public boolean[] updateAll(Collection<Student> students) {
+        return writeAll(students, this::updateLocked);
+    }
+    
+    @Override
+    public boolean[] deleteAll(Collection<String> studentIds) {
+        return writeAll(studentIds, this::deleteLocked);
+    }
+    
+    @Override
+    public int getStudentCount() {
+        return snapshot.ordered.size;
+    }
+    
+    @Override
+    public List<Student> findStudentsWithGpaAbove(double minGpa) {
+        if (minGpa < Student.MIN_GPA || minGpa > Student.MAX_GPA) {
+            return new ArrayList<>();
+        }
+        
+        Snapshot current = snapshot;
+        if (minGpa == Student.MIN_GPA) {
+            return toStudents(current.ordered);
+        }
+        
+        // Everything from the top of the GPA index down to minGpa, back in insertion order
+        List<Entry> matches = new ArrayList<>();
+        scan:
+        for (Entry[] chunk : current.byGpa.chunks) {
+            for (Entry entry : chunk) {
+                if (entry.gpa < minGpa) {
+                    break scan;
+                }
+                matches.add(entry);
+            }
+        }
+        matches.sort(Entry.BY_SEQUENCE);
+        return toStudents(matches);
+    }
+    
+    @Override
+    public List<Student> getStudentsSortedByGpa() {
+        // The GPA index is already in Student.compareTo order, ties in insertion order
+        return toStudents(snapshot.byGpa);
+    }
+    
+    // Additional utility methods matching StudentDAOImpl
+    
+    /**
+     * Get students grouped by course
+     * @return Map of course name to list of students
+     */
+    public Map<String, List<Student>> getStudentsGroupedByCourse() {
+        return getAllStudents().stream()
+                .collect(Collectors.groupingBy(Student::getCourse));
+    }
+    
+    /**
+     * Get students grouped by year of study
+     * @return Map of year to list of students
+     */
+    public Map<Integer, List<Student>> getStudentsGroupedByYear() {
+        return getAllStudents().stream()
+                .collect(Collectors.groupingBy(Student::getYearOfStudy));
+    }
+    
+    /**
+     * Get average GPA for all students
+     * @return average GPA
+     */
+    public double getAverageGpa() {
+        return statistics.getAverageGpa();
+    }
+    
+    /**
+     * Get statistics from the running totals, without touching the students
+     * @return snapshot of the statistics as of the last write
+     */
+    public StudentStatistics getStatistics() {
+        return statistics;
+    }
+    
+    /**
+     * Get students with honors status
+     * @return List of honors students
+     */
+    public List<Student> getHonorsStudents() {
+        return findStudentsWithGpaAbove(3.5);
+    }
+    
+    /**
+     * Search students by name (case-insensitive)
+     * @param searchTerm the search term
+     * @return List of matching students
+     */
+    public List<Student> searchStudentsByName(String searchTerm) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        String lowerSearchTerm = searchTerm.toLowerCase();
+        Snapshot current = snapshot;
+        
+        if (NameSearchIndex.isIndexable(lowerSearchTerm)) {
+            List<Student> result = new ArrayList<>();
+            for (Entry entry : nameIndex.candidates(lowerSearchTerm)) {
+                if (entry.isVisibleIn(current) && entry.searchName.contains(lowerSearchTerm)) {
+                    result.add(entry.student);
+                }
+            }
+            // Entries leave the index only after a newer snapshot is published,
+            // so if there is none the index still held everything ours can see
+            if (current == snapshot) {
+                return result;
+            }
+        }
+        
+        // Short terms have no trigram to look up, and a search that raced a
+        // write cannot trust the index, so check every name in the snapshot
+        List<Student> result = new ArrayList<>();
+        for (Entry[] chunk : current.ordered.chunks) {
+            for (Entry entry : chunk) {
+                if (entry.searchName.contains(lowerSearchTerm)) {
+                    result.add(entry.student);
+                }
+            }
+        }
+        return result;
+    }
+    
+    // Read path
+    
+    private static List<Student> toStudents(Chunks bucket) {
+        if (bucket == null) {
+            return new ArrayList<>();
+        }
+        
+        List<Student> result = new ArrayList<>(bucket.size);
+        for (Entry[] chunk : bucket.chunks) {
+            for (Entry entry : chunk) {
+                result.add(entry.student);
+            }
+        }
+        return result;
+    }
+    
+    private static List<Student> toStudents(Collection<Entry> entries) {
+        List<Student> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            result.add(entry.student);
+        }
+        return result;
+    }
+    
+    // Write path, always called with the write lock held
+    
+    /**
+     * Apply a write to each item in order. The lock is released every
+     * BATCH_LOCK_SIZE items so a large batch cannot shut other writers out
+     * for long; readers are never held up either way.
+     */
+    private <T> boolean[] writeAll(Collection<T> items, Predicate<T> write) {
+        boolean[] results = new boolean[items.size()];
+        Iterator<T> iterator = items.iterator();
+        int i = 0;
+        while (i < results.length && iterator.hasNext()) {
+            writeLock.lock();
+            try {
+                int runEnd = Math.min(results.length, i + BATCH_LOCK_SIZE);
+                while (i < runEnd && iterator.hasNext()) {
+                    results[i++] = write.test(iterator.next());
+                }
+                publishStatistics();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        return results;
+    }
+    
+    private boolean addLocked(Student student) {
+        if (!hasStudentId(student) || studentsById.containsKey(student.getStudentId())) {
+            return false;
+        }
+        
+        Snapshot current = snapshot;
+        Entry entry = new Entry(student, nextSequence++, current.version + 1, null);
+        studentsById.put(student.getStudentId(), entry);
+        nameIndex.add(entry.searchName, entry.sequence, entry);
+        aggregates.add(entry.course, entry.year, entry.gpa);
+        snapshot = current.with(entry);
+        return true;
+    }
+    
+    private boolean updateLocked(Student student) {
+        if (!hasStudentId(student)) {
+            return false;
+        }
+        Entry oldEntry = studentsById.get(student.getStudentId());
+        if (oldEntry == null) {
+            return false;
+        }
+        
+        // Updated students move to the end of the ordering, as in StudentDAOImpl.
+        // The new entry replaces the old one in a single put and keeps a link
+        // to it, so ID lookups on the current snapshot still find the old one.
+        Snapshot current = snapshot;
+        long version = current.version + 1;
+        Entry entry = new Entry(student, nextSequence++, version, oldEntry);
+        oldEntry.previous = null; // no reader can still need anything older
+        oldEntry.removedVersion = version;
+        studentsById.put(student.getStudentId(), entry);
+        nameIndex.add(entry.searchName, entry.sequence, entry);
+        aggregates.remove(oldEntry.course, oldEntry.year, oldEntry.gpa);
+        aggregates.add(entry.course, entry.year, entry.gpa);
+        snapshot = current.without(oldEntry).with(entry);
+        
+        nameIndex.remove(oldEntry.searchName, oldEntry.sequence);
+        return true;
+    }
+    
+    private boolean deleteLocked(String studentId) {
+        if (studentId == null || studentId.trim().isEmpty()) {
+            return false;
+        }
+        Entry entry = studentsById.get(studentId);
+        if (entry == null) {
+            return false;
+        }
+        
+        Snapshot current = snapshot;
+        entry.removedVersion = current.version + 1;
+        aggregates.remove(entry.course, entry.year, entry.gpa);
+        snapshot = current.without(entry);
+        
+        // Only now that no new reader can see the entry does it leave the shared structures
+        studentsById.remove(studentId, entry);
+        nameIndex.remove(entry.searchName, entry.sequence);
+        return true;
+    }
+    
+    private static boolean hasStudentId(Student student) {
+        return student != null && student.getStudentId() != null && !student.getStudentId().trim().isEmpty();
+    }
+    
+    private void publishStatistics() {
+        statistics = aggregates.snapshot();
+    }
+    
+    /**
+     * Case-fold a course name so index lookups match equalsIgnoreCase
+     */
+    private static String courseKey(String course) {
+        return course == null ? null : course.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * The students as of one write: in insertion order, by course, by year
+     * and by GPA. Never changed once published; a write derives a new one
+     * that shares every chunk it did not touch.
+     */
+    private static final class Snapshot {
+        
+        private static final Snapshot EMPTY = new Snapshot(0, Chunks.empty(Entry.BY_SEQUENCE),
+                Chunks.empty(Entry.BY_GPA_DESC), Collections.emptyMap(), Collections.emptyMap());
+        
+        private final long version;
+        private final Chunks ordered;
+        private final Chunks byGpa;
+        private final Map<String, Chunks> byCourse;
+        private final Map<Integer, Chunks> byYear;
+        
+        private Snapshot(long version, Chunks ordered, Chunks byGpa,
+                         Map<String, Chunks> byCourse, Map<Integer, Chunks> byYear) {
+            this.version = version;
+            this.ordered = ordered;
+            this.byGpa = byGpa;
+            this.byCourse = byCourse;
+            this.byYear = byYear;
+        }
+        
+        private Snapshot with(Entry entry) {
+            Map<String, Chunks> courses = byCourse;
+            if (entry.courseKey != null) {
+                courses = new HashMap<>(byCourse);
+                courses.merge(entry.courseKey, Chunks.empty(Entry.BY_SEQUENCE).with(entry),
+                        (bucket, ignored) -> bucket.with(entry));
+            }
+            Map<Integer, Chunks> years = new HashMap<>(byYear);
+            years.merge(entry.year, Chunks.empty(Entry.BY_SEQUENCE).with(entry),
+                    (bucket, ignored) -> bucket.with(entry));
+            return new Snapshot(entry.version, ordered.with(entry), byGpa.with(entry), courses, years);
+        }
+        
+        private Snapshot without(Entry entry) {
+            Map<String, Chunks> courses = byCourse;
+            if (entry.courseKey != null) {
+                courses = new HashMap<>(byCourse);
+                courses.computeIfPresent(entry.courseKey, (key, bucket) -> bucket.without(entry).orNull());
+            }
+            Map<Integer, Chunks> years = new HashMap<>(byYear);
+            years.computeIfPresent(entry.year, (key, bucket) -> bucket.without(entry).orNull());
+            return new Snapshot(entry.removedVersion, ordered.without(entry), byGpa.without(entry), courses, years);
+        }
+    }
+    
+    /**
+     * An immutable sorted list of entries, split into chunks of at most
+     * 2 * CHUNK_SIZE so adding or removing one entry copies a single chunk
+     * and the table of chunks rather than the whole list
+     */
+    private static final class Chunks {
+        
+        private static final int CHUNK_SIZE = 256;
+        
+        private final Comparator<Entry> order;
+        private final Entry[][] chunks;
+        private final int size;
+        
+        private Chunks(Comparator<Entry> order, Entry[][] chunks, int size) {
+            this.order = order;
+            this.chunks = chunks;
+            this.size = size;
+        }
+        
+        private static Chunks empty(Comparator<Entry> order) {
+            return new Chunks(order, new Entry[0][], 0);
+        }
+        
+        private Chunks with(Entry entry) {
+            if (chunks.length == 0) {
+                return new Chunks(order, new Entry[][] {{entry}}, 1);
+            }
+            
+            int c = chunkFor(entry);
+            Entry[] chunk = chunks[c];
+            int position = -Arrays.binarySearch(chunk, entry, order) - 1;
+            Entry[] grown = new Entry[chunk.length + 1];
+            System.arraycopy(chunk, 0, grown, 0, position);
+            grown[position] = entry;
+            System.arraycopy(chunk, position, grown, position + 1, chunk.length - position);
+            
+            if (grown.length <= 2 * CHUNK_SIZE) {
+                Entry[][] table = chunks.clone();
+                table[c] = grown;
+                return new Chunks(order, table, size + 1);
+            }
+            
+            // Split an overfull chunk in two
+            Entry[][] table = new Entry[chunks.length + 1][];
+            System.arraycopy(chunks, 0, table, 0, c);
+            table[c] = Arrays.copyOfRange(grown, 0, CHUNK_SIZE);
+            table[c + 1] = Arrays.copyOfRange(grown, CHUNK_SIZE, grown.length);
+            System.arraycopy(chunks, c + 1, table, c + 2, chunks.length - c - 1);
+            return new Chunks(order, table, size + 1);
+        }
+        
+        private Chunks without(Entry entry) {
+            if (chunks.length == 0) {
+                return this;
+            }
+            
+            int c = chunkFor(entry);
+            Entry[] chunk = chunks[c];
+            int position = Arrays.binarySearch(chunk, entry, order);
+            if (position < 0) {
+                return this;
+            }
+            
+            if (chunk.length == 1) {
+                Entry[][] table = new Entry[chunks.length - 1][];
+                System.arraycopy(chunks, 0, table, 0, c);
+                System.arraycopy(chunks, c + 1, table, c, chunks.length - c - 1);
+                return new Chunks(order, table, size - 1);
+            }
+            
+            Entry[] shrunk = new Entry[chunk.length - 1];
+            System.arraycopy(chunk, 0, shrunk, 0, position);
+            System.arraycopy(chunk, position + 1, shrunk, position, shrunk.length - position);
+            Entry[][] table = chunks.clone();
+            table[c] = shrunk;
+            return new Chunks(order, table, size - 1);
+        }
+        
+        /**
+         * @return this list, or null if it is empty, so emptied index buckets drop out of their map
+         */
+        private Chunks orNull() {
+            return size == 0 ? null : this;
+        }
+        
+        /**
+         * Find the last chunk whose first entry sorts at or before the given one
+         */
+        private int chunkFor(Entry entry) {
+            int low = 1;
+            int high = chunks.length - 1;
+            int found = 0;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (order.compare(chunks[middle][0], entry) <= 0) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return found;
+        }
+    }
+    
+    /**
+     * A stored student with its insertion sequence and the keys it was
+     * indexed under, captured at insertion time because Student is mutable.
+     * It also records the snapshot versions it was added and removed in,
+     * which is how readers of studentsById and the name index, which the
+     * writer changes in place, tell whether it belongs to their snapshot.
+     */
+    private static final class Entry {
+        
+        // GPA descending like Student.compareTo, ties broken by insertion sequence
+        private static final Comparator<Entry> BY_GPA_DESC = (e1, e2) -> {
+            int gpaCompare = Double.compare(e2.gpa, e1.gpa);
+            return gpaCompare != 0 ? gpaCompare : Long.compare(e1.sequence, e2.sequence);
+        };
+        
+        private static final Comparator<Entry> BY_SEQUENCE = Comparator.comparingLong(entry -> entry.sequence);
+        
+        private final Student student;
+        private final long sequence;
+        private final String course;
+        private final String courseKey;
+        private final int year;
+        private final double gpa;
+        private final String searchName;
+        
+        private final long version;
+        private volatile long removedVersion;
+        
+        // The entry this one replaced, for readers on the snapshot before it
+        private volatile Entry previous;
+        
+        private Entry(Student student, long sequence, long version, Entry previous) {
+            this.student = student;
+            this.sequence = sequence;
+            this.course = student.getCourse();
+            this.courseKey = courseKey(course);
+            this.year = student.getYearOfStudy();
+            this.gpa = student.getGpa();
+            this.searchName = StudentDAOImpl.searchName(student);
+            this.version = version;
+            this.removedVersion = Long.MAX_VALUE;
+            this.previous = previous;
+        }
+        
+        private boolean isVisibleIn(Snapshot snapshot) {
+            return version <= snapshot.version && removedVersion > snapshot.version;
+        }
+    }
+}
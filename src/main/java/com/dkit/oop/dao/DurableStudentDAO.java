@@ -0,0 +1,891 @@
+package com.dkit.oop.dao;
+
+import com.dkit.oop.models.Student;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable decorator for any StudentDAO: a write-ahead log plus snapshots
+ * Demonstrates the decorator pattern and crash-safe file handling with FileChannel
+ *
+ * Every successful add, update and delete is appended to a binary log
+ * before the call returns; when the log is forced to disk depends on the
+ * SyncPolicy. Reads go straight to the wrapped DAO. Once the log grows past
+ * a threshold a background thread writes a snapshot of every student and
+ * starts a new log, so recovery reads one compact snapshot and replays only
+ * the writes made after it.
+ *
+ * Files in the directory, for generation n:
+ *   snapshot-n.dat  every student as of the moment log n was started
+ *   wal-n.log       writes made after that moment
+ * Recovery loads the newest snapshot and replays its log and any later ones
+ * in order, cutting off a record left half-written by a crash. Log records
+ * are upserts and deletes of whole students, so replaying a write the
+ * snapshot already contains is harmless.
+ *
+ * Writes through Student setters are not seen; update the student through
+ * this DAO to make a change durable.
+ */
+public class DurableStudentDAO implements StudentDAO, AutoCloseable {
+    
+    /**
+     * When the log is forced to disk
+     */
+    public enum SyncPolicy {
+        /** Before each write returns, forcing once per write; writers take turns */
+        EVERY_WRITE,
+        /** Before each write returns, with writers that arrive together sharing one force */
+        GROUP_COMMIT,
+        /** Every sync interval; writes return once the OS has them, so only an OS crash can lose them */
+        PERIODIC
+    }
+    
+    public static final long DEFAULT_SNAPSHOT_LOG_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 100;
+    
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+    private static final int RECORD_HEADER_BYTES = 8; // int length, int CRC
+    private static final int SNAPSHOT_MAGIC = 0x53545544; // "STUD"
+    private static final int SNAPSHOT_FORMAT = 1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int NULL_STRING = 0xFFFF;
+    private static final int IO_BUFFER_SIZE = 1024 * 1024;
+    private static final int LOG_BUFFER_SIZE = 64 * 1024;
+    private static final int LOAD_BATCH_SIZE = 65_536;
+    private static final int MAX_STUDENT_BYTES = 8 + 1 + 4 + 5 * (2 + NULL_STRING - 1);
+    
+    private final StudentDAO delegate;
+    private final Path directory;
+    private final SyncPolicy syncPolicy;
+    private final long snapshotLogBytes;
+    private final ScheduledExecutorService background;
+    private final AtomicBoolean snapshotRunning;
+    private final ReentrantLock snapshotLock;
+    
+    // Lock order: flushLock, then appendLock. appendLock keeps the DAO and
+    // the log in the same order; flushLock is held while writing the log.
+    private final ReentrantLock flushLock;
+    private final ReentrantLock appendLock;
+    
+    // Guarded by appendLock
+    private ByteBuffer pending;
+    private long appendedLsn;
+    private long segmentBytes;
+    
+    // Guarded by flushLock
+    private ByteBuffer spare;
+    private FileChannel log;
+    private long generation;
+    
+    // Log sequence numbers of the last write handed to the OS and forced to disk
+    private volatile long writtenLsn;
+    private volatile long forcedLsn;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    
+    public DurableStudentDAO(StudentDAO delegate, Path directory) throws IOException {
+        this(delegate, directory, SyncPolicy.GROUP_COMMIT, DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_SNAPSHOT_LOG_BYTES);
+    }
+    
+    /**
+     * Open or create a durable store, loading its contents into the delegate
+     * @param delegate the in-memory DAO to serve reads from; should start empty
+     * @param directory where the snapshot and log files live
+     * @param syncPolicy when the log is forced to disk
+     * @param syncIntervalMillis how often the log is forced under SyncPolicy.PERIODIC
+     * @param snapshotLogBytes log size that triggers a background snapshot
+     * @throws IOException if the files cannot be read or created
+     */
+    public DurableStudentDAO(StudentDAO delegate, Path directory, SyncPolicy syncPolicy,
+                             long syncIntervalMillis, long snapshotLogBytes) throws IOException {
+        if (syncIntervalMillis < 1 || snapshotLogBytes < 1) {
+            throw new IllegalArgumentException("Sync interval and snapshot threshold must be positive");
+        }
+        this.delegate = delegate;
+        this.directory = directory;
+        this.syncPolicy = syncPolicy;
+        this.snapshotLogBytes = snapshotLogBytes;
+        this.snapshotRunning = new AtomicBoolean();
+        this.snapshotLock = new ReentrantLock();
+        this.flushLock = new ReentrantLock();
+        this.appendLock = new ReentrantLock();
+        this.pending = ByteBuffer.allocate(LOG_BUFFER_SIZE);
+        this.spare = ByteBuffer.allocate(LOG_BUFFER_SIZE);
+        
+        Files.createDirectories(directory);
+        recover();
+        
+        this.background = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "durable-student-dao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (syncPolicy == SyncPolicy.PERIODIC) {
+            background.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * @return the DAO reads are served from
+     */
+    public StudentDAO getDelegate() {
+        return delegate;
+    }
+    
+    @Override
+    public boolean addStudent(Student student) {
+        if (student == null) {
+            return delegate.addStudent(null);
+        }
+        ByteBuffer record = encodeUpsert(student);
+        return write(() -> delegate.addStudent(student), record);
+    }
+    
+    @Override
+    public boolean updateStudent(Student student) {
+        if (student == null) {
+            return delegate.updateStudent(null);
+        }
+        ByteBuffer record = encodeUpsert(student);
+        return write(() -> delegate.updateStudent(student), record);
+    }
+    
+    @Override
+    public boolean deleteStudent(String studentId) {
+        if (studentId == null) {
+            return delegate.deleteStudent(null);
+        }
+        ByteBuffer record = encodeDelete(studentId);
+        return write(() -> delegate.deleteStudent(studentId), record);
+    }
+    
+    @Override
+    public boolean[] addAll(Collection<Student> students) {
+        List<ByteBuffer> records = new ArrayList<>(students.size());
+        for (Student student : students) {
+            records.add(student != null ? encodeUpsert(student) : null);
+        }
+        return writeAll(() -> delegate.addAll(students), records);
+    }
+    
+    @Override
+    public boolean[] updateAll(Collection<Student> students) {
+        List<ByteBuffer> records = new ArrayList<>(students.size());
+        for (Student student : students) {
+            records.add(student != null ? encodeUpsert(student) : null);
+        }
+        return writeAll(() -> delegate.updateAll(students), records);
+    }
+    
+    @Override
+    public boolean[] deleteAll(Collection<String> studentIds) {
+        List<ByteBuffer> records = new ArrayList<>(studentIds.size());
+        for (String studentId : studentIds) {
+            records.add(studentId != null ? encodeDelete(studentId) : null);
+        }
+        return writeAll(() -> delegate.deleteAll(studentIds), records);
+    }
+    
+    @Override
+    public Optional<Student> findStudentById(String studentId) {
+        return delegate.findStudentById(studentId);
+    }
+    
+    @Override
+    public List<Student> findStudentsByCourse(String course) {
+        return delegate.findStudentsByCourse(course);
+    }
+    
+    @Override
+    public List<Student> findStudentsByYear(int year) {
+        return delegate.findStudentsByYear(year);
+    }
+    
+    @Override
+    public List<Student> getAllStudents() {
+        return delegate.getAllStudents();
+    }
+    
+    @Override
+    public int getStudentCount() {
+        return delegate.getStudentCount();
+    }
+    
+    @Override
+    public List<Student> findStudentsWithGpaAbove(double minGpa) {
+        return delegate.findStudentsWithGpaAbove(minGpa);
+    }
+    
+    @Override
+    public List<Student> getStudentsSortedByGpa() {
+        return delegate.getStudentsSortedByGpa();
+    }
+    
+    /**
+     * Force every write so far to disk, whatever the sync policy
+     * @throws IOException if the log cannot be written
+     */
+    public void sync() throws IOException {
+        long lsn;
+        appendLock.lock();
+        try {
+            lsn = appendedLsn;
+        } finally {
+            appendLock.unlock();
+        }
+        flush(lsn, true);
+    }
+    
+    /**
+     * Write a snapshot of every student and start a new log, then delete
+     * the files the snapshot replaces. Writers are held up only while the
+     * log is switched and the student list copied, not while the snapshot
+     * is written.
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            checkUsable();
+            List<Student> students;
+            long snapshotGeneration;
+            flushLock.lock();
+            try {
+                appendLock.lock();
+                try {
+                    writePending();
+                    forceLog();
+                    log.close();
+                    snapshotGeneration = generation + 1;
+                    log = openLog(snapshotGeneration);
+                    generation = snapshotGeneration;
+                    segmentBytes = 0;
+                    students = delegate.getAllStudents();
+                } finally {
+                    appendLock.unlock();
+                }
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            } finally {
+                flushLock.unlock();
+            }
+            
+            writeSnapshot(snapshotGeneration, students);
+            for (long older : generations("snapshot-", ".dat")) {
+                if (older < snapshotGeneration) {
+                    Files.deleteIfExists(snapshotPath(older));
+                }
+            }
+            for (long older : generations("wal-", ".log")) {
+                if (older < snapshotGeneration) {
+                    Files.deleteIfExists(logPath(older));
+                }
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+    
+    /**
+     * Stop background work, force the log and close it. Reads still work
+     * afterwards; writes throw IllegalStateException.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        background.shutdown();
+        try {
+            background.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotLock.lock();
+        flushLock.lock();
+        try {
+            if (failure == null) {
+                writePending();
+                forceLog();
+            }
+            log.close();
+        } finally {
+            flushLock.unlock();
+            snapshotLock.unlock();
+        }
+    }
+    
+    // Writing
+    
+    /**
+     * Apply one change to the delegate and log it if it succeeded, then
+     * wait for the log as the sync policy requires
+     */
+    private boolean write(BooleanSupplier change, ByteBuffer record) {
+        boolean oneAtATime = syncPolicy == SyncPolicy.EVERY_WRITE;
+        if (oneAtATime) {
+            flushLock.lock();
+        }
+        try {
+            long lsn;
+            appendLock.lock();
+            try {
+                checkUsable();
+                if (!change.getAsBoolean()) {
+                    return false;
+                }
+                lsn = append(record);
+            } finally {
+                appendLock.unlock();
+            }
+            commit(lsn);
+            return true;
+        } finally {
+            if (oneAtATime) {
+                flushLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Apply a batch to the delegate in one call and log the changes that
+     * succeeded, waiting for the log once for the whole batch
+     */
+    private boolean[] writeAll(Supplier<boolean[]> change, List<ByteBuffer> records) {
+        boolean oneAtATime = syncPolicy == SyncPolicy.EVERY_WRITE;
+        if (oneAtATime) {
+            flushLock.lock();
+        }
+        try {
+            boolean[] results;
+            long lsn;
+            appendLock.lock();
+            try {
+                checkUsable();
+                results = change.get();
+                lsn = appendedLsn;
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i]) {
+                        lsn = append(records.get(i));
+                    }
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            commit(lsn);
+            return results;
+        } finally {
+            if (oneAtATime) {
+                flushLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Add a record to the pending buffer; called with appendLock held
+     * @return the record's log sequence number
+     */
+    private long append(ByteBuffer record) {
+        if (pending.remaining() < record.remaining()) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + record.remaining()));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        segmentBytes += record.remaining();
+        pending.put(record);
+        return ++appendedLsn;
+    }
+    
+    private void commit(long lsn) {
+        try {
+            flush(lsn, syncPolicy != SyncPolicy.PERIODIC);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the student log", e);
+        }
+        if (segmentBytes > snapshotLogBytes && !closed && snapshotRunning.compareAndSet(false, true)) {
+            background.execute(() -> {
+                try {
+                    snapshot();
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error writing student snapshot: " + e.getMessage());
+                } finally {
+                    snapshotRunning.set(false);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Make sure a write has reached the OS, and the disk if force is set.
+     * Whoever gets flushLock writes everything pending, so writers queued
+     * behind it usually find their own write already done.
+     */
+    private void flush(long lsn, boolean force) throws IOException {
+        if ((force ? forcedLsn : writtenLsn) >= lsn) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            if ((force ? forcedLsn : writtenLsn) >= lsn) {
+                return;
+            }
+            checkUsable();
+            writePending();
+            if (force) {
+                forceLog();
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    /**
+     * Write the pending buffer to the log; called with flushLock held
+     */
+    private void writePending() throws IOException {
+        ByteBuffer batch;
+        long batchLsn;
+        appendLock.lock();
+        try {
+            batch = pending;
+            pending = spare;
+            batchLsn = appendedLsn;
+        } finally {
+            appendLock.unlock();
+        }
+        
+        batch.flip();
+        while (batch.hasRemaining()) {
+            log.write(batch);
+        }
+        batch.clear();
+        // Let go of a buffer grown for an unusually large batch
+        spare = batch.capacity() > LOG_BUFFER_SIZE * 16 ? ByteBuffer.allocate(LOG_BUFFER_SIZE) : batch;
+        writtenLsn = batchLsn;
+    }
+    
+    /**
+     * Force the log; called with flushLock held after writePending
+     */
+    private void forceLog() throws IOException {
+        long lsn = writtenLsn;
+        log.force(false);
+        forcedLsn = lsn;
+    }
+    
+    private void syncQuietly() {
+        try {
+            if (!closed && failure == null) {
+                sync();
+            }
+        } catch (IOException e) {
+            System.err.println("Error syncing student log: " + e.getMessage());
+        }
+    }
+    
+    private void checkUsable() {
+        if (closed) {
+            throw new IllegalStateException("Student store is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Student log failed earlier; changes can no longer be made durable", failure);
+        }
+    }
+    
+    // Encoding: [int length][int CRC32C of the body][body], body = type byte + data
+    
+    /**
+     * Reads a file through one heap buffer, refilled on demand, so records
+     * are decoded straight from its array
+     */
+    private static final class ChunkReader {
+        
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        
+        ChunkReader(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(IO_BUFFER_SIZE * 4);
+            buffer.flip();
+        }
+        
+        ByteBuffer buffer() {
+            return buffer;
+        }
+        
+        /**
+         * Try to have at least the given number of bytes buffered, up to
+         * the buffer's capacity
+         * @return false if the file ended first; what was left is still buffered
+         */
+        boolean fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return true;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer.remaining() >= bytes;
+        }
+    }
+    
+    private static ByteBuffer encodeUpsert(Student student) {
+        byte[][] strings = {
+            utf8(student.getStudentId()), utf8(student.getFirstName()), utf8(student.getLastName()),
+            utf8(student.getEmail()), utf8(student.getCourse())
+        };
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + 1 + studentBytes(strings));
+        record.position(RECORD_HEADER_BYTES);
+        record.put(UPSERT);
+        putStudent(record, student, strings);
+        return seal(record);
+    }
+    
+    private static ByteBuffer encodeDelete(String studentId) {
+        byte[] id = utf8(studentId);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + 1 + 2 + id.length);
+        record.position(RECORD_HEADER_BYTES);
+        record.put(DELETE);
+        putString(record, id);
+        return seal(record);
+    }
+    
+    /**
+     * Fill in the length and checksum of an encoded record and flip it for reading
+     */
+    private static ByteBuffer seal(ByteBuffer record) {
+        int bodyLength = record.position() - RECORD_HEADER_BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), RECORD_HEADER_BYTES, bodyLength);
+        record.putInt(0, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+    
+    private static int studentBytes(byte[][] strings) {
+        int size = 8 + 1 + 4; // gpa, year, date of birth
+        for (byte[] string : strings) {
+            size += 2 + (string != null ? string.length : 0);
+        }
+        return size;
+    }
+    
+    private static void putStudent(ByteBuffer out, Student student, byte[][] strings) {
+        LocalDate dateOfBirth = student.getDateOfBirth();
+        out.putDouble(student.getGpa());
+        out.put((byte) student.getYearOfStudy());
+        out.putInt(dateOfBirth != null ? (int) dateOfBirth.toEpochDay() : NO_DATE);
+        for (byte[] string : strings) {
+            putString(out, string);
+        }
+    }
+    
+    private static void putString(ByteBuffer out, byte[] string) {
+        if (string == null) {
+            out.putShort((short) NULL_STRING);
+        } else {
+            out.putShort((short) string.length);
+            out.put(string);
+        }
+    }
+    
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING) {
+            throw new IllegalArgumentException("Value is too long to store: " + value.length() + " characters");
+        }
+        return bytes;
+    }
+    
+    private static Student readStudent(ByteBuffer in) {
+        double gpa = in.getDouble();
+        int yearOfStudy = in.get();
+        int epochDay = in.getInt();
+        String studentId = readString(in);
+        String firstName = readString(in);
+        String lastName = readString(in);
+        String email = readString(in);
+        String course = readString(in);
+        LocalDate dateOfBirth = epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null;
+        return new Student(firstName, lastName, dateOfBirth, email, studentId, course, yearOfStudy, gpa);
+    }
+    
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+    
+    // Snapshots and recovery
+    
+    /**
+     * Write a snapshot to a temporary file, force it and rename it into place
+     * Layout: magic, format, generation, count, students, CRC32C of the students
+     */
+    private void writeSnapshot(long snapshotGeneration, List<Student> students) throws IOException {
+        Path target = snapshotPath(snapshotGeneration);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_FORMAT).putLong(snapshotGeneration).putLong(students.size());
+            CRC32C crc = new CRC32C();
+            ByteBuffer record = ByteBuffer.allocate(1024);
+            byte[][] strings = new byte[5][];
+            for (Student student : students) {
+                strings[0] = utf8(student.getStudentId());
+                strings[1] = utf8(student.getFirstName());
+                strings[2] = utf8(student.getLastName());
+                strings[3] = utf8(student.getEmail());
+                strings[4] = utf8(student.getCourse());
+                int size = studentBytes(strings);
+                if (record.capacity() < size) {
+                    record = ByteBuffer.allocate(size);
+                }
+                record.clear();
+                putStudent(record, student, strings);
+                record.flip();
+                crc.update(record.array(), 0, record.limit());
+                if (buffer.remaining() < record.remaining()) {
+                    drain(channel, buffer);
+                }
+                if (buffer.remaining() < record.remaining()) {
+                    channel.write(record); // larger than the whole buffer
+                } else {
+                    buffer.put(record);
+                }
+            }
+            if (buffer.remaining() < 4) {
+                drain(channel, buffer);
+            }
+            buffer.putInt((int) crc.getValue());
+            drain(channel, buffer);
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory();
+    }
+    
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Load the newest snapshot, replay the logs after it and open the last
+     * log for appending
+     */
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "snapshot-*.tmp")) {
+            for (Path leftover : leftovers) {
+                Files.delete(leftover);
+            }
+        }
+        
+        TreeSet<Long> snapshots = generations("snapshot-", ".dat");
+        long base = snapshots.isEmpty() ? 0 : snapshots.last();
+        if (!snapshots.isEmpty()) {
+            loadSnapshot(base);
+        }
+        
+        TreeSet<Long> logs = new TreeSet<>(generations("wal-", ".log").tailSet(base, true));
+        generation = logs.isEmpty() ? base : logs.last();
+        for (long logGeneration : logs) {
+            replayLog(logGeneration, logGeneration == generation);
+        }
+        
+        log = openLog(generation);
+        log.position(log.size());
+        segmentBytes = log.size();
+    }
+    
+    private void loadSnapshot(long snapshotGeneration) throws IOException {
+        Path path = snapshotPath(snapshotGeneration);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ChunkReader reader = new ChunkReader(channel);
+            ByteBuffer in = reader.buffer();
+            reader.fill(24);
+            if (in.remaining() < 24 || in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_FORMAT
+                    || in.getLong() != snapshotGeneration) {
+                throw new IOException("Not a student snapshot: " + path);
+            }
+            long count = in.getLong();
+            
+            CRC32C crc = new CRC32C();
+            List<Student> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+            for (long i = 0; i < count; i++) {
+                reader.fill(MAX_STUDENT_BYTES);
+                int start = in.position();
+                batch.add(readStudent(in));
+                crc.update(in.array(), in.arrayOffset() + start, in.position() - start);
+                if (batch.size() == LOAD_BATCH_SIZE) {
+                    delegate.addAll(batch);
+                    batch.clear();
+                }
+            }
+            delegate.addAll(batch);
+            
+            reader.fill(4);
+            if (in.getInt() != (int) crc.getValue()) {
+                throw new IOException("Student snapshot is corrupt: " + path);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Student snapshot is truncated: " + path, e);
+        }
+    }
+    
+    /**
+     * Apply every complete record of a log to the delegate. A torn record
+     * at the end of the newest log is a write interrupted by a crash, and
+     * is cut off so new records follow the last good one.
+     */
+    private void replayLog(long logGeneration, boolean newest) throws IOException {
+        Path path = logPath(logGeneration);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ChunkReader reader = new ChunkReader(channel);
+            ByteBuffer in = reader.buffer();
+            CRC32C crc = new CRC32C();
+            long size = channel.size();
+            long goodBytes = 0;
+            while (reader.fill(RECORD_HEADER_BYTES)) {
+                int length = in.getInt();
+                int expected = in.getInt();
+                if (length < 1 || length > 1 + MAX_STUDENT_BYTES || length > size - goodBytes - RECORD_HEADER_BYTES
+                        || !reader.fill(length)) {
+                    break;
+                }
+                int start = in.position();
+                crc.reset();
+                crc.update(in.array(), in.arrayOffset() + start, length);
+                if ((int) crc.getValue() != expected) {
+                    break;
+                }
+                apply(in, path);
+                in.position(start + length);
+                goodBytes += RECORD_HEADER_BYTES + length;
+            }
+            
+            if (goodBytes < size) {
+                if (!newest) {
+                    throw new IOException("Student log is damaged before its end: " + path);
+                }
+                channel.truncate(goodBytes);
+                channel.force(true);
+            }
+        }
+    }
+    
+    private void apply(ByteBuffer record, Path path) throws IOException {
+        byte type = record.get();
+        if (type == UPSERT) {
+            Student student = readStudent(record);
+            if (!delegate.updateStudent(student)) {
+                delegate.addStudent(student);
+            }
+        } else if (type == DELETE) {
+            delegate.deleteStudent(readString(record));
+        } else {
+            throw new IOException("Unknown record type " + type + " in " + path);
+        }
+    }
+    
+    private FileChannel openLog(long logGeneration) throws IOException {
+        Path path = logPath(logGeneration);
+        boolean created = !Files.exists(path);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (created) {
+            forceDirectory();
+        }
+        return channel;
+    }
+    
+    private TreeSet<Long> generations(String prefix, String suffix) throws IOException {
+        TreeSet<Long> generations = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    generations.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        return generations;
+    }
+    
+    private Path snapshotPath(long snapshotGeneration) {
+        return directory.resolve("snapshot-" + snapshotGeneration + ".dat");
+    }
+    
+    private Path logPath(long logGeneration) {
+        return directory.resolve("wal-" + logGeneration + ".log");
+    }
+    
+    /**
+     * Make a new or renamed file's directory entry durable. Not every
+     * platform can open a directory, and there it is left to the OS.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be forced here
+        }
+    }
+}
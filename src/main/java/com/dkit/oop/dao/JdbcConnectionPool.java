@@ -0,0 +1,225 @@
+package com.dkit.oop.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small fixed-size pool of JDBC connections for JdbcStudentDAO
+ * Demonstrates resource pooling with a semaphore and per-connection statement caches
+ *
+ * Connections are opened lazily through DriverManager, up to the pool size,
+ * and handed out most recently used first so the warm ones keep being
+ * reused. Each connection keeps its own prepared statements, keyed by SQL,
+ * so a statement is parsed and planned once per connection instead of once
+ * per call. A connection that sat idle for a while is checked with isValid
+ * before it is handed out again, and one that failed is closed rather than
+ * returned to the pool if it no longer answers.
+ */
+final class JdbcConnectionPool implements AutoCloseable {
+    
+    // More distinct statements than this per connection are closed least recently used first
+    private static final int STATEMENT_CACHE_SIZE = 32;
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    
+    private final String url;
+    private final String user;
+    private final String password;
+    private final long borrowTimeoutMillis;
+    private final Semaphore permits;
+    
+    // Guarded by itself; the most recently returned connection is first
+    private final Deque<PooledConnection> idle;
+    private boolean closed;
+    
+    /**
+     * @param url the JDBC URL to connect to
+     * @param user the database user, or null to connect without credentials
+     * @param password the user's password
+     * @param maxSize the most connections open at once
+     * @param borrowTimeoutMillis how long borrow waits for a free connection
+     */
+    JdbcConnectionPool(String url, String user, String password, int maxSize, long borrowTimeoutMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+        this.idle = new ArrayDeque<>(maxSize);
+    }
+    
+    /**
+     * Take a connection, waiting for one to be released if all are in use
+     * Every successful borrow must be matched by exactly one release.
+     * @return a connection in auto-commit mode
+     * @throws SQLException if the pool is closed, the wait times out or a new connection cannot be opened
+     */
+    PooledConnection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No database connection became free within " + borrowTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        
+        try {
+            PooledConnection pooled;
+            while ((pooled = takeIdle()) != null) {
+                if (System.nanoTime() - pooled.lastUsed < VALIDATE_AFTER_NANOS
+                        || pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return pooled;
+                }
+                pooled.closeQuietly();
+            }
+            Connection connection = user == null
+                    ? DriverManager.getConnection(url)
+                    : DriverManager.getConnection(url, user, password);
+            return new PooledConnection(connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Return a borrowed connection
+     * @param pooled the connection
+     * @param failed true if a statement on it threw; it is rolled back and
+     *               checked, and closed instead of pooled if it is broken
+     */
+    void release(PooledConnection pooled, boolean failed) {
+        try {
+            if (failed && !recover(pooled)) {
+                pooled.closeQuietly();
+                return;
+            }
+            pooled.lastUsed = System.nanoTime();
+            synchronized (idle) {
+                if (!closed) {
+                    idle.push(pooled);
+                    return;
+                }
+            }
+            pooled.closeQuietly();
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * Close the idle connections; borrowed ones are closed as they are released
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        synchronized (idle) {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (PooledConnection pooled : toClose) {
+            pooled.closeQuietly();
+        }
+    }
+    
+    private PooledConnection takeIdle() throws SQLException {
+        synchronized (idle) {
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            return idle.poll();
+        }
+    }
+    
+    private static boolean recover(PooledConnection pooled) {
+        try {
+            if (!pooled.connection.getAutoCommit()) {
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            return pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * A pooled connection with its cache of prepared statements
+     * Used by one thread at a time, between borrow and release.
+     */
+    static final class PooledConnection {
+        
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements;
+        private long lastUsed;
+        
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= STATEMENT_CACHE_SIZE) {
+                        return false;
+                    }
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+            };
+            this.lastUsed = System.nanoTime();
+        }
+        
+        Connection getConnection() {
+            return connection;
+        }
+        
+        /**
+         * Get this connection's prepared statement for some SQL, preparing it on first use
+         * The statement stays open for later calls; close only its result sets.
+         */
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+        
+        private void closeQuietly() {
+            for (PreparedStatement statement : statements.values()) {
+                closeQuietly(statement);
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Already broken; nothing more to release
+            }
+        }
+        
+        private static void closeQuietly(PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // The connection will be closed or reused either way
+            }
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.dkit.oop.dao;
+
+import com.dkit.oop.models.Student;
+
+import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Implementation of StudentDAO backed by the students table of students.sql
+ * Demonstrates JDBC with pooled connections, reused prepared statements,
+ * batched writes and streamed result sets
+ *
+ * Only java.sql is used, so any database with a JDBC driver on the class
+ * path will do, including in-process ones such as H2 or SQLite. Each call
+ * borrows a connection from a small built-in pool and runs statements the
+ * connection has already prepared. The batch methods send their rows with
+ * addBatch/executeBatch in one transaction per batch instead of one round
+ * trip and commit per row. Listings read rows fetchSize at a time, and
+ * forEachStudent hands each student on as it is read, so a large table can
+ * be processed without holding all of it in memory.
+ *
+ * The database enforces the schema's constraints, so besides duplicate IDs
+ * this DAO also rejects duplicate emails, missing names, dates, courses or
+ * emails, and out-of-range years and GPAs. GPAs are stored as DECIMAL(3,2)
+ * and so come back rounded to two places. Students are not cached: a
+ * Student read from the DAO is a copy, and changing it changes nothing
+ * until it is passed to updateStudent.
+ *
+ * Database failures other than constraint violations are thrown as
+ * IllegalStateException, since the StudentDAO methods cannot throw
+ * SQLException.
+ */
+public class JdbcStudentDAO implements StudentDAO, AutoCloseable {
+    
+    public static final int DEFAULT_POOL_SIZE = 8;
+    public static final int DEFAULT_FETCH_SIZE = 1_000;
+    public static final int DEFAULT_BATCH_SIZE = 1_000;
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 30_000;
+    
+    private static final String COLUMNS =
+            "student_id, first_name, last_name, date_of_birth, email, course, year_of_study, gpa";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM students";
+    
+    private static final String INSERT = "INSERT INTO students (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE students SET first_name = ?, last_name = ?, date_of_birth = ?,"
+            + " email = ?, course = ?, year_of_study = ?, gpa = ?, updated_at = CURRENT_TIMESTAMP WHERE student_id = ?";
+    private static final String DELETE = "DELETE FROM students WHERE student_id = ?";
+    
+    // The stored procedures in students.sql are MySQL-only, so their queries are inlined with the same ordering
+    private static final String FIND_BY_ID = SELECT + " WHERE student_id = ?";
+    // Courses match ignoring case, like equalsIgnoreCase in the other DAOs; this forgoes idx_students_course
+    private static final String FIND_BY_COURSE = SELECT + " WHERE LOWER(course) = LOWER(?) ORDER BY last_name, first_name";
+    private static final String FIND_BY_YEAR = SELECT + " WHERE year_of_study = ? ORDER BY gpa DESC, student_id";
+    private static final String FIND_BY_MIN_GPA = SELECT + " WHERE gpa >= ? ORDER BY student_id";
+    private static final String FIND_ALL = SELECT + " ORDER BY student_id";
+    private static final String SORTED_BY_GPA = SELECT + " ORDER BY gpa DESC, student_id";
+    private static final String SEARCH_BY_NAME = SELECT
+            + " WHERE LOWER({fn CONCAT({fn CONCAT(first_name, ' ')}, last_name)}) LIKE ? ESCAPE '!'"
+            + " ORDER BY last_name, first_name";
+    private static final String COUNT = "SELECT COUNT(*) FROM students";
+    private static final String STATISTICS =
+            "SELECT course, year_of_study, gpa, COUNT(*) FROM students GROUP BY course, year_of_study, gpa";
+    
+    // Portable subset of students.sql: the table and its indexes
+    private static final String[] SCHEMA = {
+        "CREATE TABLE students ("
+            + " student_id VARCHAR(20) PRIMARY KEY,"
+            + " first_name VARCHAR(50) NOT NULL,"
+            + " last_name VARCHAR(50) NOT NULL,"
+            + " date_of_birth DATE NOT NULL,"
+            + " email VARCHAR(100) UNIQUE NOT NULL,"
+            + " course VARCHAR(100) NOT NULL,"
+            + " year_of_study INT NOT NULL CHECK (year_of_study >= 1 AND year_of_study <= 4),"
+            + " gpa DECIMAL(3,2) NOT NULL CHECK (gpa >= 0.0 AND gpa <= 4.0),"
+            + " created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+            + " updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+        "CREATE INDEX idx_students_course ON students(course)",
+        "CREATE INDEX idx_students_year ON students(year_of_study)",
+        "CREATE INDEX idx_students_gpa ON students(gpa)",
+        "CREATE INDEX idx_students_name ON students(last_name, first_name)"
+    };
+    
+    private final JdbcConnectionPool pool;
+    private final int fetchSize;
+    private final int batchSize;
+    
+    /**
+     * Connect with the default pool, fetch and batch sizes
+     * @param url the JDBC URL, e.g. jdbc:h2:./students
+     * @param user the database user, or null to connect without credentials
+     * @param password the user's password
+     */
+    public JdbcStudentDAO(String url, String user, String password) {
+        this(url, user, password, DEFAULT_POOL_SIZE, DEFAULT_FETCH_SIZE, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * Connections are opened on first use, so a wrong URL or password shows
+     * up as an IllegalStateException from the first call
+     * @param url the JDBC URL
+     * @param user the database user, or null to connect without credentials
+     * @param password the user's password
+     * @param poolSize the most connections open at once
+     * @param fetchSize rows read per round trip by listings
+     * @param batchSize rows sent per executeBatch by the batch methods
+     */
+    public JdbcStudentDAO(String url, String user, String password, int poolSize, int fetchSize, int batchSize) {
+        if (fetchSize < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Fetch and batch sizes must be positive");
+        }
+        this.pool = new JdbcConnectionPool(url, user, password, poolSize, DEFAULT_BORROW_TIMEOUT_MILLIS);
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Create the students table and its indexes unless the table already exists
+     * Views, procedures and triggers from students.sql are MySQL-specific and
+     * not needed by this DAO, so they are left out.
+     */
+    public void createSchema() {
+        withConnection(pooled -> {
+            Connection connection = pooled.getConnection();
+            try (Statement statement = connection.createStatement()) {
+                try {
+                    statement.executeQuery(COUNT).close();
+                    return null;
+                } catch (SQLException e) {
+                    // No table yet
+                }
+                for (String sql : SCHEMA) {
+                    statement.execute(sql);
+                }
+            }
+            return null;
+        });
+    }
+    
+    @Override
+    public boolean addStudent(Student student) {
+        if (!hasId(student)) {
+            return false;
+        }
+        return withConnection(pooled -> {
+            PreparedStatement insert = pooled.prepare(INSERT);
+            bindInsert(insert, student);
+            return executeUpdate(insert);
+        });
+    }
+    
+    @Override
+    public Optional<Student> findStudentById(String studentId) {
+        if (studentId == null || studentId.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        List<Student> found = query(FIND_BY_ID, studentId);
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+    
+    @Override
+    public List<Student> findStudentsByCourse(String course) {
+        if (course == null || course.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return query(FIND_BY_COURSE, course);
+    }
+    
+    @Override
+    public List<Student> findStudentsByYear(int year) {
+        return query(FIND_BY_YEAR, year);
+    }
+    
+    @Override
+    public List<Student> getAllStudents() {
+        List<Student> students = new ArrayList<>();
+        forEachStudent(students::add);
+        return students;
+    }
+    
+    /**
+     * Pass every student to an action as the rows are read, in student ID order
+     * At most fetchSize rows are buffered at a time, provided the driver
+     * honours the fetch size: PostgreSQL does inside a transaction, which this
+     * method opens, while MySQL needs useCursorFetch=true on the URL.
+     * @param action called once per student, on the calling thread
+     */
+    public void forEachStudent(Consumer<? super Student> action) {
+        withConnection(pooled -> {
+            Connection connection = pooled.getConnection();
+            connection.setAutoCommit(false);
+            read(pooled.prepare(FIND_ALL), action);
+            connection.commit();
+            connection.setAutoCommit(true);
+            return null;
+        });
+    }
+    
+    @Override
+    public boolean updateStudent(Student student) {
+        if (!hasId(student)) {
+            return false;
+        }
+        return withConnection(pooled -> {
+            PreparedStatement update = pooled.prepare(UPDATE);
+            bindUpdate(update, student);
+            return executeUpdate(update);
+        });
+    }
+    
+    @Override
+    public boolean deleteStudent(String studentId) {
+        if (studentId == null || studentId.trim().isEmpty()) {
+            return false;
+        }
+        return withConnection(pooled -> {
+            PreparedStatement delete = pooled.prepare(DELETE);
+            delete.setString(1, studentId);
+            return executeUpdate(delete);
+        });
+    }
+    
+    /**
+     * Insert students batchSize rows per executeBatch and commit
+     */
+    @Override
+    public boolean[] addAll(Collection<Student> students) {
+        return runBatches(INSERT, students, JdbcStudentDAO::hasId, JdbcStudentDAO::bindInsert);
+    }
+    
+    @Override
+    public boolean[] updateAll(Collection<Student> students) {
+        return runBatches(UPDATE, students, JdbcStudentDAO::hasId, JdbcStudentDAO::bindUpdate);
+    }
+    
+    @Override
+    public boolean[] deleteAll(Collection<String> studentIds) {
+        return runBatches(DELETE, studentIds, id -> id != null && !id.trim().isEmpty(),
+                (statement, id) -> statement.setString(1, id));
+    }
+    
+    @Override
+    public int getStudentCount() {
+        return withConnection(pooled -> {
+            try (ResultSet rows = pooled.prepare(COUNT).executeQuery()) {
+                rows.next();
+                return rows.getInt(1);
+            }
+        });
+    }
+    
+    @Override
+    public List<Student> findStudentsWithGpaAbove(double minGpa) {
+        if (minGpa < Student.MIN_GPA || minGpa > Student.MAX_GPA) {
+            return new ArrayList<>();
+        }
+        // BigDecimal.valueOf keeps e.g. 3.7 as 3.7, where the double is slightly above 3.70
+        return query(FIND_BY_MIN_GPA, BigDecimal.valueOf(minGpa));
+    }
+    
+    @Override
+    public List<Student> getStudentsSortedByGpa() {
+        return query(SORTED_BY_GPA, null);
+    }
+    
+    // Additional queries used by StudentController
+    
+    /**
+     * Search students by name (case-insensitive), as SearchStudentsByName in students.sql
+     * @param searchTerm text to find anywhere in "first last"
+     * @return matching students ordered by last then first name
+     */
+    public List<Student> searchStudentsByName(String searchTerm) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        String escaped = searchTerm.toLowerCase()
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return query(SEARCH_BY_NAME, "%" + escaped + "%");
+    }
+    
+    /**
+     * Compute the statistics in the database, one row per course, year and GPA
+     * @return the same figures as the student_statistics view, plus per-course and per-year counts
+     */
+    public StudentStatistics getStatistics() {
+        return withConnection(pooled -> {
+            StudentAggregates aggregates = new StudentAggregates();
+            try (ResultSet rows = pooled.prepare(STATISTICS).executeQuery()) {
+                while (rows.next()) {
+                    aggregates.add(rows.getString(1), rows.getInt(2), rows.getDouble(3), rows.getLong(4));
+                }
+            }
+            return aggregates.snapshot();
+        });
+    }
+    
+    public Map<String, List<Student>> getStudentsGroupedByCourse() {
+        Map<String, List<Student>> groups = new HashMap<>();
+        forEachStudent(student -> groups.computeIfAbsent(student.getCourse(), course -> new ArrayList<>()).add(student));
+        return groups;
+    }
+    
+    public Map<Integer, List<Student>> getStudentsGroupedByYear() {
+        Map<Integer, List<Student>> groups = new HashMap<>();
+        forEachStudent(student -> groups.computeIfAbsent(student.getYearOfStudy(), year -> new ArrayList<>()).add(student));
+        return groups;
+    }
+    
+    /**
+     * Close the pooled connections; calls made afterwards fail
+     */
+    @Override
+    public void close() {
+        pool.close();
+    }
+    
+    // Statement helpers
+    
+    private List<Student> query(String sql, Object parameter) {
+        List<Student> students = new ArrayList<>();
+        withConnection(pooled -> {
+            PreparedStatement statement = pooled.prepare(sql);
+            if (parameter != null) {
+                statement.setObject(1, parameter);
+            }
+            read(statement, students::add);
+            return null;
+        });
+        return students;
+    }
+    
+    private void read(PreparedStatement statement, Consumer<? super Student> action) throws SQLException {
+        statement.setFetchSize(fetchSize);
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                Date dateOfBirth = rows.getDate(4);
+                action.accept(new Student(rows.getString(2), rows.getString(3),
+                        dateOfBirth != null ? dateOfBirth.toLocalDate() : null, rows.getString(5),
+                        rows.getString(1), rows.getString(6), rows.getInt(7), rows.getDouble(8)));
+            }
+        }
+    }
+    
+    /**
+     * Run one insert, update or delete in auto-commit mode
+     * @return true if it changed a row, false if it changed none or broke a constraint
+     */
+    private static boolean executeUpdate(PreparedStatement statement) throws SQLException {
+        try {
+            return statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            if (isConstraintViolation(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Run a statement once per item, batchSize items per executeBatch and
+     * commit. Items the filter rejects are skipped and reported as false.
+     * If a batch breaks a constraint it is rolled back and its items are run
+     * one at a time instead, so each gets the result it would get alone.
+     */
+    private <T> boolean[] runBatches(String sql, Collection<T> items, Predicate<T> filter,
+                                     Binder<T> binder) {
+        boolean[] results = new boolean[items.size()];
+        if (items.isEmpty()) {
+            return results;
+        }
+        return withConnection(pooled -> {
+            Connection connection = pooled.getConnection();
+            PreparedStatement statement = pooled.prepare(sql);
+            connection.setAutoCommit(false);
+            
+            List<T> batch = new ArrayList<>(Math.min(batchSize, items.size()));
+            int[] positions = new int[Math.min(batchSize, items.size())];
+            int index = 0;
+            for (T item : items) {
+                if (filter.test(item)) {
+                    positions[batch.size()] = index;
+                    batch.add(item);
+                    if (batch.size() == batchSize) {
+                        runBatch(connection, statement, batch, positions, binder, results);
+                        batch.clear();
+                    }
+                }
+                index++;
+            }
+            if (!batch.isEmpty()) {
+                runBatch(connection, statement, batch, positions, binder, results);
+            }
+            
+            connection.setAutoCommit(true);
+            return results;
+        });
+    }
+    
+    private static <T> void runBatch(Connection connection, PreparedStatement statement, List<T> batch,
+                                     int[] positions, Binder<T> binder, boolean[] results) throws SQLException {
+        try {
+            for (T item : batch) {
+                binder.bind(statement, item);
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            connection.commit();
+            for (int i = 0; i < batch.size(); i++) {
+                // Some drivers report success without a row count
+                results[positions[i]] = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+            }
+        } catch (BatchUpdateException e) {
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            statement.clearBatch();
+            connection.rollback();
+            for (int i = 0; i < batch.size(); i++) {
+                binder.bind(statement, batch.get(i));
+                boolean changed = executeUpdate(statement);
+                // A failed statement aborts the whole transaction on some databases
+                if (changed) {
+                    connection.commit();
+                } else {
+                    connection.rollback();
+                }
+                results[positions[i]] = changed;
+            }
+        }
+    }
+    
+    private static void bindInsert(PreparedStatement statement, Student student) throws SQLException {
+        statement.setString(1, student.getStudentId());
+        bindColumns(statement, student, 2);
+    }
+    
+    private static void bindUpdate(PreparedStatement statement, Student student) throws SQLException {
+        bindColumns(statement, student, 1);
+        statement.setString(8, student.getStudentId());
+    }
+    
+    /**
+     * Bind every column but student_id, in COLUMNS order, from the given parameter index
+     */
+    private static void bindColumns(PreparedStatement statement, Student student, int first) throws SQLException {
+        statement.setString(first, student.getFirstName());
+        statement.setString(first + 1, student.getLastName());
+        if (student.getDateOfBirth() != null) {
+            statement.setDate(first + 2, Date.valueOf(student.getDateOfBirth()));
+        } else {
+            statement.setNull(first + 2, Types.DATE);
+        }
+        statement.setString(first + 3, student.getEmail());
+        statement.setString(first + 4, student.getCourse());
+        statement.setInt(first + 5, student.getYearOfStudy());
+        statement.setBigDecimal(first + 6, BigDecimal.valueOf(student.getGpa()));
+    }
+    
+    private static boolean hasId(Student student) {
+        return student != null && student.getStudentId() != null && !student.getStudentId().trim().isEmpty();
+    }
+    
+    /**
+     * True for SQLSTATE class 23, integrity constraint violation, anywhere in
+     * the exception, its causes or the exceptions chained after it
+     */
+    private static boolean isConstraintViolation(SQLException e) {
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            for (Throwable cause = next; cause != null; cause = cause.getCause()) {
+                if (cause instanceof SQLIntegrityConstraintViolationException
+                        || cause instanceof SQLException && ((SQLException) cause).getSQLState() != null
+                        && ((SQLException) cause).getSQLState().startsWith("23")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Borrow a connection, run some work on it and give it back
+     * The connection is handed back as failed if the work throws, so any
+     * open transaction is rolled back and a broken connection is dropped.
+     */
+    private <T> T withConnection(Work<T> work) {
+        JdbcConnectionPool.PooledConnection pooled;
+        try {
+            pooled = pool.borrow();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not get a student database connection: " + e.getMessage(), e);
+        }
+        boolean failed = true;
+        try {
+            T result = work.run(pooled);
+            failed = false;
+            return result;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Student database error: " + e.getMessage(), e);
+        } finally {
+            pool.release(pooled, failed);
+        }
+    }
+    
+    private interface Work<T> {
+        T run(JdbcConnectionPool.PooledConnection pooled) throws SQLException;
+    }
+    
+    private interface Binder<T> {
+        void bind(PreparedStatement statement, T item) throws SQLException;
+    }
+}
@@ -0,0 +1,107 @@
+package com.dkit.oop.dao;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Trigram index over lower-cased student names, used by the DAOs for
+ * substring search. Every three-character window of a name maps to the
+ * entries whose name contains it, ordered by insertion sequence.
+ *
+ * A name that contains the search term must contain every trigram of the
+ * term, so the smallest of those postings is a complete candidate list.
+ * Callers still verify each candidate with String.contains, which keeps
+ * results identical to a full scan.
+ *
+ * @param <T> the DAO's entry type
+ */
+class NameSearchIndex<T> {
+    
+    static final int GRAM_LENGTH = 3;
+    
+    private final boolean concurrent;
+    private final Map<String, Posting<T>> postings;
+    
+    /**
+     * @param concurrent true to allow lock-free readers alongside a single writer
+     */
+    NameSearchIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.postings = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+    
+    /**
+     * Index an entry under every trigram of its name
+     * @param searchName the lower-cased name
+     * @param sequence the entry's insertion sequence, increasing with each add
+     * @param entry the entry to index
+     */
+    void add(String searchName, long sequence, T entry) {
+        for (int i = 0; i + GRAM_LENGTH <= searchName.length(); i++) {
+            Posting<T> posting = postings.computeIfAbsent(searchName.substring(i, i + GRAM_LENGTH),
+                    gram -> new Posting<>(concurrent));
+            if (posting.entries.put(sequence, entry) == null) {
+                posting.size++;
+            }
+        }
+    }
+    
+    /**
+     * Remove an entry from every trigram of its name
+     * @param searchName the lower-cased name the entry was added with
+     * @param sequence the entry's insertion sequence
+     */
+    void remove(String searchName, long sequence) {
+        for (int i = 0; i + GRAM_LENGTH <= searchName.length(); i++) {
+            String gram = searchName.substring(i, i + GRAM_LENGTH);
+            Posting<T> posting = postings.get(gram);
+            if (posting != null && posting.entries.remove(sequence) != null) {
+                if (--posting.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the smallest posting that every match must appear in
+     * @param searchTerm the lower-cased term, at least GRAM_LENGTH characters long
+     * @return candidate entries in insertion order; empty if some trigram is not indexed
+     */
+    Collection<T> candidates(String searchTerm) {
+        Posting<T> smallest = null;
+        for (int i = 0; i + GRAM_LENGTH <= searchTerm.length(); i++) {
+            Posting<T> posting = postings.get(searchTerm.substring(i, i + GRAM_LENGTH));
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            if (smallest == null || posting.size < smallest.size) {
+                smallest = posting;
+            }
+        }
+        return smallest.entries.values();
+    }
+    
+    /**
+     * Check if a term is long enough to be answered from the index
+     */
+    static boolean isIndexable(String searchTerm) {
+        return searchTerm.length() >= GRAM_LENGTH;
+    }
+    
+    /**
+     * Entries sharing one trigram. The size is tracked separately because
+     * ConcurrentSkipListMap.size() walks the whole map; only the single
+     * writer updates it.
+     */
+    private static final class Posting<T> {
+        private final Map<Long, T> entries;
+        private volatile int size;
+        
+        private Posting(boolean concurrent) {
+            // Sequences only ever increase, so a LinkedHashMap stays in sequence order
+            this.entries = concurrent ? new ConcurrentSkipListMap<>() : new LinkedHashMap<>();
+        }
+    }
+}
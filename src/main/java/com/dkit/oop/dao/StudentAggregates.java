@@ -0,0 +1,82 @@
+package com.dkit.oop.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals over the students held by a DAO
+ * Each add or remove is O(1), so statistics never need to walk the students.
+ *
+ * GPAs are summed in hundredths as a long. students.sql stores GPA as
+ * DECIMAL(3,2), so this matches what AVG(gpa) in the student_statistics
+ * view computes, and the sum does not drift however many times students
+ * are added and removed.
+ */
+class StudentAggregates {
+    
+    static final double HONORS_GPA = 3.5;
+    static final double WARNING_GPA = 2.0;
+    
+    private long count;
+    private long gpaHundredthsSum;
+    private long honorsCount;
+    private long warningCount;
+    private final Map<String, Long> countsByCourse;
+    private final Map<Integer, Long> countsByYear;
+    
+    StudentAggregates() {
+        this.countsByCourse = new HashMap<>();
+        this.countsByYear = new HashMap<>();
+    }
+    
+    /**
+     * Count a student in the totals
+     * @param course the course the student was stored with
+     * @param year the year of study the student was stored with
+     * @param gpa the GPA the student was stored with
+     */
+    void add(String course, int year, double gpa) {
+        apply(course, year, gpa, 1);
+    }
+    
+    /**
+     * Count several students that share a course, year and GPA
+     * Used to build totals from a GROUP BY query instead of one row at a time.
+     * @param students how many students have these values
+     */
+    void add(String course, int year, double gpa, long students) {
+        apply(course, year, gpa, students);
+    }
+    
+    /**
+     * Take a student back out of the totals, using the values it was added with
+     */
+    void remove(String course, int year, double gpa) {
+        apply(course, year, gpa, -1);
+    }
+    
+    private void apply(String course, int year, double gpa, long delta) {
+        count += delta;
+        gpaHundredthsSum += delta * Math.round(gpa * 100);
+        if (gpa >= HONORS_GPA) {
+            honorsCount += delta;
+        }
+        if (gpa < WARNING_GPA) {
+            warningCount += delta;
+        }
+        if (course != null) {
+            countsByCourse.merge(course, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        countsByYear.merge(year, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+    
+    /**
+     * Take an immutable copy of the current totals
+     * @return the statistics as of now
+     */
+    StudentStatistics snapshot() {
+        double averageGpa = count == 0 ? 0.0 : gpaHundredthsSum / 100.0 / count;
+        return new StudentStatistics(count, averageGpa, honorsCount, warningCount,
+                                     countsByCourse, countsByYear);
+    }
+}
@@ -1,6 +1,7 @@
 package com.dkit.oop.dao;
 
 import com.dkit.oop.models.Student;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,6 +59,51 @@ public interface StudentDAO {
      */
     boolean deleteStudent(String studentId);
     
+    /**
+     * Add many students at once
+     * The result is the same as calling addStudent for each student in
+     * iteration order, but implementations can share the work across the
+     * batch. The default just loops.
+     * @param students the students to add
+     * @return one result per student, in iteration order: true if it was added
+     */
+    default boolean[] addAll(Collection<Student> students) {
+        boolean[] results = new boolean[students.size()];
+        int i = 0;
+        for (Student student : students) {
+            results[i++] = addStudent(student);
+        }
+        return results;
+    }
+    
+    /**
+     * Update many students at once, as if by updateStudent for each in turn
+     * @param students the students to update
+     * @return one result per student, in iteration order: true if it was updated
+     */
+    default boolean[] updateAll(Collection<Student> students) {
+        boolean[] results = new boolean[students.size()];
+        int i = 0;
+        for (Student student : students) {
+            results[i++] = updateStudent(student);
+        }
+        return results;
+    }
+    
+    /**
+     * Delete many students at once, as if by deleteStudent for each in turn
+     * @param studentIds the student IDs to delete
+     * @return one result per ID, in iteration order: true if a student was deleted
+     */
+    default boolean[] deleteAll(Collection<String> studentIds) {
+        boolean[] results = new boolean[studentIds.size()];
+        int i = 0;
+        for (String studentId : studentIds) {
+            results[i++] = deleteStudent(studentId);
+        }
+        return results;
+    }
+    
     /**
      * Get the total number of students
      * @return the total count
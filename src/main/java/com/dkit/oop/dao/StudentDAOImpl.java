@@ -3,6 +3,7 @@ package com.dkit.oop.dao;
 import com.dkit.oop.models.Student;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of StudentDAO interface using in-memory collections
@@ -10,19 +11,43 @@ import java.util.stream.Collectors;
  */
 public class StudentDAOImpl implements StudentDAO {
     
+    private static final int INITIAL_CAPACITY = 16;
+    
     // Using Map for efficient lookups by student ID
-    private final Map<String, Student> studentsById;
+    private Map<String, Entry> studentsById;
+    
+    // Insertion-ordered slots; deleted or replaced students leave a null tombstone
+    private Entry[] slots;
+    private int slotCount;
+    private int tombstones;
+    
+    // Secondary indexes mirroring idx_students_course and idx_students_year in students.sql
+    private final Map<String, Set<Entry>> courseIndex;
+    private final Map<Integer, Set<Entry>> yearIndex;
+    
+    // GPA-ordered index mirroring idx_students_gpa, highest GPA first
+    private final NavigableSet<Entry> gpaIndex;
     
-    // Using Set to maintain unique students
-    private final Set<Student> studentsSet;
+    // Trigram index over lower-cased full names for searchStudentsByName
+    private final NameSearchIndex<Entry> nameIndex;
     
-    // Using List for ordered access
-    private final List<Student> studentsList;
+    // Running totals for getStatistics
+    private final StudentAggregates aggregates;
+    
+    // Insertion sequence; slot order always matches sequence order
+    private long nextSequence;
     
     public StudentDAOImpl() {
         this.studentsById = new HashMap<>();
-        this.studentsSet = new HashSet<>();
-        this.studentsList = new ArrayList<>();
+        this.slots = new Entry[INITIAL_CAPACITY];
+        this.slotCount = 0;
+        this.tombstones = 0;
+        this.courseIndex = new HashMap<>();
+        this.yearIndex = new HashMap<>();
+        this.gpaIndex = new TreeSet<>(Entry.BY_GPA_DESC);
+        this.nameIndex = new NameSearchIndex<>(false);
+        this.aggregates = new StudentAggregates();
+        this.nextSequence = 0;
     }
     
     @Override
@@ -36,11 +61,7 @@ public class StudentDAOImpl implements StudentDAO {
             return false;
         }
         
-        // Add to all collections
-        studentsById.put(student.getStudentId(), student);
-        studentsSet.add(student);
-        studentsList.add(student);
-        
+        insert(student);
         return true;
     }
     
@@ -50,8 +71,8 @@ public class StudentDAOImpl implements StudentDAO {
             return Optional.empty();
         }
         
-        Student student = studentsById.get(studentId);
-        return Optional.ofNullable(student);
+        Entry entry = studentsById.get(studentId);
+        return entry == null ? Optional.empty() : Optional.of(entry.student);
     }
     
     @Override
@@ -60,9 +81,7 @@ public class StudentDAOImpl implements StudentDAO {
             return new ArrayList<>();
         }
         
-        return studentsList.stream()
-                .filter(student -> course.equalsIgnoreCase(student.getCourse()))
-                .collect(Collectors.toList());
+        return collectIndexed(courseIndex.get(courseKey(course)));
     }
     
     @Override
@@ -71,15 +90,20 @@ public class StudentDAOImpl implements StudentDAO {
             return new ArrayList<>();
         }
         
-        return studentsList.stream()
-                .filter(student -> student.getYearOfStudy() == year)
-                .collect(Collectors.toList());
+        return collectIndexed(yearIndex.get(year));
     }
     
     @Override
     public List<Student> getAllStudents() {
         // Return a new list to prevent external modification
-        return new ArrayList<>(studentsList);
+        List<Student> result = new ArrayList<>(studentsById.size());
+        for (int i = 0; i < slotCount; i++) {
+            Entry entry = slots[i];
+            if (entry != null) {
+                result.add(entry.student);
+            }
+        }
+        return result;
     }
     
     @Override
@@ -89,19 +113,14 @@ public class StudentDAOImpl implements StudentDAO {
         }
         
         // Check if student exists
-        if (!studentsById.containsKey(student.getStudentId())) {
+        Entry oldEntry = studentsById.get(student.getStudentId());
+        if (oldEntry == null) {
             return false;
         }
         
-        // Remove old student from collections
-        Student oldStudent = studentsById.get(student.getStudentId());
-        studentsSet.remove(oldStudent);
-        studentsList.remove(oldStudent);
-        
-        // Add updated student
-        studentsById.put(student.getStudentId(), student);
-        studentsSet.add(student);
-        studentsList.add(student);
+        // Updated students move to the end of the ordering, as before
+        remove(oldEntry);
+        insert(student);
         
         return true;
     }
@@ -112,19 +131,70 @@ public class StudentDAOImpl implements StudentDAO {
             return false;
         }
         
-        Student student = studentsById.remove(studentId);
-        if (student != null) {
-            studentsSet.remove(student);
-            studentsList.remove(student);
+        Entry entry = studentsById.get(studentId);
+        if (entry != null) {
+            remove(entry);
             return true;
         }
         
         return false;
     }
     
+    /**
+     * Add students in one pass, sizing the slot array once for the whole
+     * batch instead of growing it step by step, and the ID map too when the
+     * batch is larger than what it already holds
+     */
+    @Override
+    public boolean[] addAll(Collection<Student> students) {
+        ensureSlotCapacity(students.size());
+        ensureIdCapacity(students.size());
+        
+        boolean[] results = new boolean[students.size()];
+        int i = 0;
+        for (Student student : students) {
+            results[i++] = addStudent(student);
+        }
+        return results;
+    }
+    
+    /**
+     * Update students in one pass. Each update appends a slot, so the slot
+     * array is sized once for the whole batch; the ID map does not grow.
+     */
+    @Override
+    public boolean[] updateAll(Collection<Student> students) {
+        ensureSlotCapacity(students.size());
+        
+        boolean[] results = new boolean[students.size()];
+        int i = 0;
+        for (Student student : students) {
+            results[i++] = updateStudent(student);
+        }
+        return results;
+    }
+    
+    /**
+     * Delete students in one pass, compacting the tombstones they leave
+     * once at the end rather than on some later insert
+     */
+    @Override
+    public boolean[] deleteAll(Collection<String> studentIds) {
+        boolean[] results = new boolean[studentIds.size()];
+        int i = 0;
+        for (String studentId : studentIds) {
+            results[i++] = deleteStudent(studentId);
+        }
+        
+        if (tombstones >= slotCount / 2 && tombstones > 0) {
+            compact();
+        }
+        return results;
+    }
+    
     @Override
     public int getStudentCount() {
-        return studentsList.size();
+        return studentsById.size();
     }
     
     @Override
@@ -133,16 +203,20 @@ public class StudentDAOImpl implements StudentDAO {
             return new ArrayList<>();
         }
         
-        return studentsList.stream()
-                .filter(student -> student.getGpa() >= minGpa)
-                .collect(Collectors.toList());
+        if (minGpa == Student.MIN_GPA) {
+            return getAllStudents();
+        }
+        
+        // Everything from the top of the GPA index down to minGpa, back in slot order
+        List<Entry> matches = new ArrayList<>(gpaIndex.headSet(Entry.probe(minGpa), true));
+        matches.sort(Entry.BY_SEQUENCE);
+        return collectIndexed(matches);
     }
     
     @Override
     public List<Student> getStudentsSortedByGpa() {
-        return studentsList.stream()
-                .sorted() // Uses the compareTo method from Student class
-                .collect(Collectors.toList());
+        // The GPA index is already in Student.compareTo order, ties in slot order
+        return collectIndexed(gpaIndex);
     }
     
     // Additional utility methods demonstrating collections usage
@@ -152,7 +226,7 @@ public class StudentDAOImpl implements StudentDAO {
      * @return Map of course name to list of students
      */
     public Map<String, List<Student>> getStudentsGroupedByCourse() {
-        return studentsList.stream()
+        return liveStudents()
                 .collect(Collectors.groupingBy(Student::getCourse));
     }
     
@@ -161,7 +235,7 @@ public class StudentDAOImpl implements StudentDAO {
      * @return Map of year to list of students
      */
     public Map<Integer, List<Student>> getStudentsGroupedByYear() {
-        return studentsList.stream()
+        return liveStudents()
                 .collect(Collectors.groupingBy(Student::getYearOfStudy));
     }
     
@@ -170,14 +244,15 @@ public class StudentDAOImpl implements StudentDAO {
      * @return average GPA
      */
     public double getAverageGpa() {
-        if (studentsList.isEmpty()) {
-            return 0.0;
-        }
-        
-        return studentsList.stream()
-                .mapToDouble(Student::getGpa)
-                .average()
-                .orElse(0.0);
+        return aggregates.snapshot().getAverageGpa();
+    }
+    
+    /**
+     * Get statistics from the running totals, without touching the students
+     * @return snapshot of the current statistics
+     */
+    public StudentStatistics getStatistics() {
+        return aggregates.snapshot();
     }
     
     /**
@@ -185,9 +260,7 @@ public class StudentDAOImpl implements StudentDAO {
      * @return List of honors students
      */
     public List<Student> getHonorsStudents() {
-        return studentsList.stream()
-                .filter(Student::isHonorsStudent)
-                .collect(Collectors.toList());
+        return findStudentsWithGpaAbove(3.5);
     }
     
     /**
@@ -202,11 +275,248 @@ public class StudentDAOImpl implements StudentDAO {
         
         String lowerSearchTerm = searchTerm.toLowerCase();
         
-        return studentsList.stream()
-                .filter(student -> 
-                    student.getFirstName().toLowerCase().contains(lowerSearchTerm) ||
-                    student.getLastName().toLowerCase().contains(lowerSearchTerm) ||
-                    student.getFullName().toLowerCase().contains(lowerSearchTerm))
-                .collect(Collectors.toList());
+        // Short terms have no trigram to look up, so check every stored name instead
+        Collection<Entry> candidates = NameSearchIndex.isIndexable(lowerSearchTerm)
+                ? nameIndex.candidates(lowerSearchTerm)
+                : Arrays.asList(slots).subList(0, slotCount);
+        
+        List<Student> result = new ArrayList<>();
+        for (Entry entry : candidates) {
+            if (entry != null && entry.searchName.contains(lowerSearchTerm)) {
+                result.add(entry.student);
+            }
+        }
+        return result;
+    }
+    
+    // Slot storage
+    
+    /**
+     * Stream the live students in insertion order
+     */
+    private Stream<Student> liveStudents() {
+        return Arrays.stream(slots, 0, slotCount)
+                .filter(Objects::nonNull)
+                .map(entry -> entry.student);
+    }
+    
+    /**
+     * Append a student to the slot array and all indexes
+     * @param student the student to store
+     */
+    private void insert(Student student) {
+        if (slotCount == slots.length) {
+            growOrCompact();
+        }
+        
+        Entry entry = new Entry(student, slotCount, nextSequence++);
+        slots[slotCount++] = entry;
+        studentsById.put(student.getStudentId(), entry);
+        addToIndexes(entry);
+    }
+    
+    /**
+     * Tombstone a student's slot and drop it from all indexes
+     * @param entry the entry to remove
+     */
+    private void remove(Entry entry) {
+        studentsById.remove(entry.student.getStudentId());
+        slots[entry.slot] = null;
+        tombstones++;
+        removeFromIndexes(entry);
+    }
+    
+    /**
+     * Make room for additional slots up front. Tombstones are compacted
+     * away first if that frees enough room; otherwise the slot array is
+     * resized once, straight to the size needed.
+     * @param additional the number of slots about to be appended
+     */
+    private void ensureSlotCapacity(int additional) {
+        int needed = slotCount + additional;
+        if (needed > slots.length) {
+            if (tombstones > 0 && needed - tombstones <= slots.length) {
+                compact();
+            } else {
+                slots = Arrays.copyOf(slots, Math.max(needed, slots.length * 2));
+            }
+        }
+    }
+    
+    /**
+     * Presize the ID map for a batch that is large next to what it already
+     * holds, so it is rebuilt once instead of rehashing at each doubling on
+     * the way. Smaller batches are left to HashMap's own growth.
+     * @param additional the number of students about to be added
+     */
+    private void ensureIdCapacity(int additional) {
+        if (additional <= studentsById.size()) {
+            return;
+        }
+        
+        Map<String, Entry> resized = new HashMap<>(capacityFor(studentsById.size() + additional));
+        resized.putAll(studentsById);
+        studentsById = resized;
+    }
+    
+    /**
+     * Initial capacity a HashMap needs to hold this many entries without resizing
+     */
+    private static int capacityFor(int entries) {
+        return (int) Math.ceil(entries / 0.75);
+    }
+    
+    /**
+     * Make room for one more slot. If at least half the slots are tombstones
+     * the live entries are slid down in place, otherwise the array doubles.
+     * Either way the cost is amortized O(1) per insert.
+     */
+    private void growOrCompact() {
+        if (tombstones >= slotCount / 2 && tombstones > 0) {
+            compact();
+        } else {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+    }
+    
+    /**
+     * Slide the live entries down over the tombstones, keeping their order
+     */
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < slotCount; i++) {
+            Entry entry = slots[i];
+            if (entry != null) {
+                entry.slot = live;
+                slots[live++] = entry;
+            }
+        }
+        Arrays.fill(slots, live, slotCount, null);
+        slotCount = live;
+        tombstones = 0;
+    }
+    
+    // Secondary index maintenance
+    
+    /**
+     * Add a student to the course, year, GPA and name indexes and the totals
+     * @param entry the entry to index
+     */
+    private void addToIndexes(Entry entry) {
+        if (entry.courseKey != null) {
+            courseIndex.computeIfAbsent(entry.courseKey, key -> new LinkedHashSet<>()).add(entry);
+        }
+        yearIndex.computeIfAbsent(entry.year, key -> new LinkedHashSet<>()).add(entry);
+        gpaIndex.add(entry);
+        nameIndex.add(entry.searchName, entry.sequence, entry);
+        aggregates.add(entry.course, entry.year, entry.gpa);
+    }
+    
+    /**
+     * Remove a student from the course, year, GPA and name indexes and the totals
+     * @param entry the entry to remove
+     */
+    private void removeFromIndexes(Entry entry) {
+        if (entry.courseKey != null) {
+            removeFromBucket(courseIndex, entry.courseKey, entry);
+        }
+        removeFromBucket(yearIndex, entry.year, entry);
+        gpaIndex.remove(entry);
+        nameIndex.remove(entry.searchName, entry.sequence);
+        aggregates.remove(entry.course, entry.year, entry.gpa);
+    }
+    
+    private static <K> void removeFromBucket(Map<K, Set<Entry>> index, K key, Entry entry) {
+        Set<Entry> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(entry);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+    
+    private static List<Student> collectIndexed(Collection<Entry> bucket) {
+        if (bucket == null) {
+            return new ArrayList<>();
+        }
+        
+        List<Student> result = new ArrayList<>(bucket.size());
+        for (Entry entry : bucket) {
+            result.add(entry.student);
+        }
+        return result;
+    }
+    
+    /**
+     * Case-fold a course name so index lookups match equalsIgnoreCase
+     */
+    private static String courseKey(String course) {
+        return course == null ? null : course.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Lower-case a student's full name for searching. The first and last
+     * names are both substrings of the full name, so one contains check on
+     * it covers all three fields the search used to test separately.
+     */
+    static String searchName(Student student) {
+        return student.getFullName().toLowerCase();
+    }
+    
+    /**
+     * A stored student together with its slot and the keys it was indexed
+     * under. Students are mutable, so the keys are captured at insertion time
+     * and used again when the entry is removed. Entries use identity equality,
+     * so removing one from an index bucket never hashes the Student itself.
+     * Buckets are insertion-ordered, which keeps results in slot order.
+     */
+    private static final class Entry {
+        
+        // GPA descending like Student.compareTo, ties broken by insertion sequence
+        private static final Comparator<Entry> BY_GPA_DESC = (e1, e2) -> {
+            int gpaCompare = Double.compare(e2.gpa, e1.gpa);
+            return gpaCompare != 0 ? gpaCompare : Long.compare(e1.sequence, e2.sequence);
+        };
+        
+        private static final Comparator<Entry> BY_SEQUENCE = Comparator.comparingLong(entry -> entry.sequence);
+        
+        private final Student student;
+        private final String course;
+        private final String courseKey;
+        private final int year;
+        private final double gpa;
+        private final String searchName;
+        private final long sequence;
+        private int slot;
+        
+        private Entry(Student student, int slot, long sequence) {
+            this.student = student;
+            this.course = student.getCourse();
+            this.courseKey = courseKey(course);
+            this.year = student.getYearOfStudy();
+            this.gpa = student.getGpa();
+            this.searchName = searchName(student);
+            this.sequence = sequence;
+            this.slot = slot;
+        }
+        
+        private Entry(double gpa, long sequence) {
+            this.student = null;
+            this.course = null;
+            this.courseKey = null;
+            this.year = 0;
+            this.gpa = gpa;
+            this.searchName = null;
+            this.sequence = sequence;
+            this.slot = -1;
+        }
+        
+        /**
+         * Search key that sorts after every entry with the given GPA
+         */
+        private static Entry probe(double gpa) {
+            return new Entry(gpa, Long.MAX_VALUE);
+        }
     }
 }
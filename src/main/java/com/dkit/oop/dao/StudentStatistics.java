@@ -0,0 +1,82 @@
+package com.dkit.oop.dao;
+
+import com.dkit.oop.models.Student;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of student statistics
+ * Holds the same figures as the student_statistics view in students.sql,
+ * plus student counts per course and per year of study.
+ */
+public class StudentStatistics {
+    
+    private final long totalStudents;
+    private final double averageGpa;
+    private final long honorsCount;
+    private final long warningCount;
+    private final Map<String, Long> countsByCourse;
+    private final Map<Integer, Long> countsByYear;
+    
+    StudentStatistics(long totalStudents, double averageGpa, long honorsCount, long warningCount,
+                      Map<String, Long> countsByCourse, Map<Integer, Long> countsByYear) {
+        this.totalStudents = totalStudents;
+        this.averageGpa = averageGpa;
+        this.honorsCount = honorsCount;
+        this.warningCount = warningCount;
+        this.countsByCourse = Collections.unmodifiableMap(new TreeMap<>(countsByCourse));
+        this.countsByYear = Collections.unmodifiableMap(new TreeMap<>(countsByYear));
+    }
+    
+    /**
+     * Compute statistics for a list of students in one pass
+     * Used for DAOs that do not keep running totals
+     * @param students the students to summarize
+     * @return the statistics
+     */
+    public static StudentStatistics of(List<Student> students) {
+        StudentAggregates aggregates = new StudentAggregates();
+        for (Student student : students) {
+            aggregates.add(student.getCourse(), student.getYearOfStudy(), student.getGpa());
+        }
+        return aggregates.snapshot();
+    }
+    
+    public long getTotalStudents() {
+        return totalStudents;
+    }
+    
+    public double getAverageGpa() {
+        return averageGpa;
+    }
+    
+    public long getHonorsCount() {
+        return honorsCount;
+    }
+    
+    public long getWarningCount() {
+        return warningCount;
+    }
+    
+    public Map<String, Long> getCountsByCourse() {
+        return countsByCourse;
+    }
+    
+    public Map<Integer, Long> getCountsByYear() {
+        return countsByYear;
+    }
+    
+    @Override
+    public String toString() {
+        return "StudentStatistics{" +
+                "totalStudents=" + totalStudents +
+                ", averageGpa=" + averageGpa +
+                ", honorsCount=" + honorsCount +
+                ", warningCount=" + warningCount +
+                ", countsByCourse=" + countsByCourse +
+                ", countsByYear=" + countsByYear +
+                '}';
+    }
+}
@@ -0,0 +1,148 @@
+package com.dkit.oop.models;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Day-granular clock for working out ages
+ * Demonstrates caching a value that only changes once a day
+ *
+ * Ages only change at midnight, so today's date is read once and reused
+ * until the next midnight in the system time zone. Dates are packed as
+ * year * 10000 + month * 100 + day, and then
+ * (today - dateOfBirth) / 10000 is the number of whole years between
+ * them. This is the same value Period.between(dateOfBirth, today).getYears()
+ * gives, Feb 29 birthdays and future dates included, but it needs only a
+ * subtraction and a division.
+ */
+public final class AgeClock {
+    
+    /**
+     * Age bands reported by getAgeDistribution, as in org.example.Statistics
+     */
+    public static final String[] AGE_GROUPS = {"18-20", "21-25", "26-30", "31+"};
+    
+    // Oldest age in each band except the last, which is open-ended
+    private static final int[] AGE_GROUP_LIMITS = {20, 25, 30};
+    
+    private static volatile Today today = new Today(0, null, 0);
+    
+    private AgeClock() {
+    }
+    
+    /**
+     * Pack a date so that subtracting two packed dates gives whole years in the ten-thousands
+     * @param date the date to pack
+     * @return year * 10000 + month * 100 + day
+     */
+    public static long dateKey(LocalDate date) {
+        return date.getYear() * 10000L + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+    
+    /**
+     * Age in whole years as of today
+     * @param dateOfBirthKey a date of birth packed by dateKey
+     * @return the age, negative for a date of birth in the future
+     */
+    public static int ageFromKey(long dateOfBirthKey) {
+        return (int) ((current().key - dateOfBirthKey) / 10000);
+    }
+    
+    /**
+     * Age in whole years as of today
+     * @param dateOfBirth the date of birth
+     * @return the same value as Period.between(dateOfBirth, LocalDate.now()).getYears()
+     */
+    public static int ageOf(LocalDate dateOfBirth) {
+        return ageFromKey(dateKey(dateOfBirth));
+    }
+    
+    /**
+     * @return today's date, as of the current snapshot
+     */
+    public static LocalDate today() {
+        return current().date;
+    }
+    
+    /**
+     * Latest date of birth for someone who is at least the given age today
+     * Someone is that age or older exactly when they were born on or before
+     * this date, so age bands can be found by comparing birth dates alone.
+     * @param age an age in years
+     * @return today minus that many years
+     */
+    public static LocalDate latestBirthDateForAge(int age) {
+        return current().date.minusYears(age);
+    }
+    
+    /**
+     * Count people by age band
+     * @param people the people to count
+     * @return counts for each of AGE_GROUPS, youngest first
+     */
+    public static Map<String, Long> getAgeDistribution(Collection<? extends Person> people) {
+        long[] counts = new long[AGE_GROUPS.length];
+        for (Person person : people) {
+            counts[ageGroup(person.getAge())]++;
+        }
+        return toDistribution(counts);
+    }
+    
+    /**
+     * Band index of an age in AGE_GROUPS
+     * @param age the age in years
+     * @return index of the band the age falls in
+     */
+    public static int ageGroup(int age) {
+        int group = 0;
+        while (group < AGE_GROUP_LIMITS.length && age > AGE_GROUP_LIMITS[group]) {
+            group++;
+        }
+        return group;
+    }
+    
+    /**
+     * Turn per-band counts into the map getAgeDistribution returns
+     * @param counts one count for each of AGE_GROUPS
+     * @return band name to count, in AGE_GROUPS order
+     */
+    public static Map<String, Long> toDistribution(long[] counts) {
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < AGE_GROUPS.length; i++) {
+            distribution.put(AGE_GROUPS[i], counts[i]);
+        }
+        return distribution;
+    }
+    
+    /**
+     * Today's snapshot, replaced on the first call after midnight
+     */
+    private static Today current() {
+        Today snapshot = today;
+        long now = System.currentTimeMillis();
+        if (now >= snapshot.validUntilMillis) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = LocalDate.now(zone);
+            long midnight = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            snapshot = new Today(midnight, date, dateKey(date));
+            today = snapshot;
+        }
+        return snapshot;
+    }
+    
+    private static final class Today {
+        
+        private final long validUntilMillis;
+        private final LocalDate date;
+        private final long key;
+        
+        private Today(long validUntilMillis, LocalDate date, long key) {
+            this.validUntilMillis = validUntilMillis;
+            this.date = date;
+            this.key = key;
+        }
+    }
+}
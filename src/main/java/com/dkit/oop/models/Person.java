@@ -2,7 +2,6 @@ package com.dkit.oop.models;
 
 import java.io.Serializable;
 import java.time.LocalDate;
-import java.time.Period;
 import java.util.Objects;
 
 /**
@@ -19,6 +18,9 @@ public abstract class Person implements Serializable {
     protected LocalDate dateOfBirth;
     protected String email;
     
+    // dateOfBirth packed for AgeClock, recomputed whenever dateOfBirth changes
+    private transient BirthKey birthKey;
+    
     // Default constructor
     public Person() {
         this.firstName = "";
@@ -73,14 +75,45 @@ public abstract class Person implements Serializable {
         return firstName + " " + lastName;
     }
     
+    /**
+     * Age in whole years, as Period.between(dateOfBirth, today) counts them
+     * Cheap enough to call from comparators: see AgeClock.
+     */
     public int getAge() {
-        return Period.between(dateOfBirth, LocalDate.now()).getYears();
+        return AgeClock.ageFromKey(getDateOfBirthKey());
+    }
+    
+    /**
+     * @return dateOfBirth packed by AgeClock.dateKey
+     */
+    public long getDateOfBirthKey() {
+        BirthKey key = birthKey;
+        // dateOfBirth is protected, so compare against it rather than rely on the setter
+        if (key == null || key.date != dateOfBirth) {
+            key = new BirthKey(dateOfBirth);
+            birthKey = key;
+        }
+        return key.key;
     }
     
     public boolean isAdult() {
         return getAge() >= 18;
     }
     
+    /**
+     * A date of birth with its packed form; immutable so it can be shared between threads
+     */
+    private static final class BirthKey {
+        
+        private final LocalDate date;
+        private final long key;
+        
+        private BirthKey(LocalDate date) {
+            this.date = date;
+            this.key = AgeClock.dateKey(date);
+        }
+    }
+    
     // Abstract method that subclasses must implement
     public abstract String getDisplayName();
     
@@ -0,0 +1,247 @@
+package com.dkit.oop.network;
+
+import com.dkit.oop.models.Student;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary framing for the student protocol, negotiated per connection
+ * Demonstrates length-prefixed framing and fixed-layout records
+ *
+ * A connection starts in the text protocol. A client that wants binary
+ * frames sends the line PROTOCOL|BINARY and waits; a server that supports
+ * them answers SUCCESS|BINARY and both sides switch, while any other answer
+ * (e.g. NioStudentServer's unknown-command error) leaves the connection on
+ * text. After the switch every message is a frame:
+ *
+ *   int length | byte opcode or response kind | payload of length - 1 bytes
+ *
+ * Requests carry one optional string argument. Students are sent as a
+ * fixed 13-byte header (double gpa, byte year, int epoch-day date of birth)
+ * followed by five length-prefixed UTF-8 strings, instead of JSON.
+ */
+final class BinaryProtocol {
+    
+    static final String NEGOTIATION_REQUEST = "PROTOCOL|BINARY";
+    static final String NEGOTIATION_ACCEPTED = "SUCCESS|BINARY";
+    
+    // Request opcodes, one per command of the text protocol
+    static final int UNKNOWN_COMMAND = 0;
+    static final int GET_ALL_STUDENTS = 1;
+    static final int GET_STUDENT_BY_ID = 2;
+    static final int GET_STUDENTS_BY_COURSE = 3;
+    static final int GET_STUDENTS_BY_YEAR = 4;
+    static final int GET_HONORS_STUDENTS = 5;
+    static final int GET_STATISTICS = 6;
+    static final int SEARCH_STUDENTS = 7;
+    
+    // Response kinds
+    static final int STUDENT = 0;
+    static final int STUDENTS = 1;
+    static final int TEXT = 2;
+    static final int ERROR = 3;
+    
+    // Larger frames are treated as a broken or hostile peer
+    private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    
+    private BinaryProtocol() {
+    }
+    
+    /**
+     * Opcode of a text protocol command
+     * @param command the command name, already upper case
+     * @return its opcode, or UNKNOWN_COMMAND
+     */
+    static int opcodeOf(String command) {
+        switch (command) {
+            case "GET_ALL_STUDENTS":
+                return GET_ALL_STUDENTS;
+            case "GET_STUDENT_BY_ID":
+                return GET_STUDENT_BY_ID;
+            case "GET_STUDENTS_BY_COURSE":
+                return GET_STUDENTS_BY_COURSE;
+            case "GET_STUDENTS_BY_YEAR":
+                return GET_STUDENTS_BY_YEAR;
+            case "GET_HONORS_STUDENTS":
+                return GET_HONORS_STUDENTS;
+            case "GET_STATISTICS":
+                return GET_STATISTICS;
+            case "SEARCH_STUDENTS":
+                return SEARCH_STUDENTS;
+            default:
+                return UNKNOWN_COMMAND;
+        }
+    }
+    
+    /**
+     * Ask the server to switch this connection to binary frames
+     * The reply is read a byte at a time, so nothing after it is buffered
+     * away from whichever protocol the connection continues in.
+     * @return true if the server accepted
+     * @throws IOException if the connection fails
+     */
+    static boolean negotiate(InputStream in, OutputStream out) throws IOException {
+        out.write((NEGOTIATION_REQUEST + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        
+        StringBuilder reply = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Server closed the connection");
+            }
+            if (b != '\r') {
+                reply.append((char) b);
+            }
+        }
+        return reply.toString().equals(NEGOTIATION_ACCEPTED);
+    }
+    
+    /**
+     * Read one frame
+     * @return the opcode or kind byte followed by the payload, or null at end of stream
+     * @throws IOException if the stream fails or ends inside a frame
+     */
+    static byte[] readFrame(DataInputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        int length = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+        if (length < 1 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+    
+    /**
+     * Write one frame
+     * @param body the opcode or kind byte followed by the payload
+     * @param out where to write the frame; not flushed
+     */
+    static void writeFrame(ByteArrayOutputStream body, DataOutputStream out) throws IOException {
+        out.writeInt(body.size());
+        body.writeTo(out);
+    }
+    
+    /**
+     * Encode a text protocol request as a frame body
+     * @param request the request, e.g. GET_STUDENT_BY_ID|S001
+     * @param out where to write the body
+     */
+    static void writeRequest(String request, DataOutputStream out) throws IOException {
+        String[] parts = request.split("\\|");
+        String command = parts.length > 0 ? parts[0].toUpperCase() : "";
+        int opcode = opcodeOf(command);
+        out.writeByte(opcode);
+        if (opcode == UNKNOWN_COMMAND) {
+            // The server names the command in its error, as in the text protocol
+            writeString(command, out);
+        } else if (parts.length > 1) {
+            writeString(parts[1], out);
+        }
+    }
+    
+    /**
+     * Write a string as a varint of its UTF-8 length plus one, then the bytes
+     * Zero stands for null.
+     */
+    static void writeString(String value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length + 1;
+        while ((length & ~0x7F) != 0) {
+            out.writeByte((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.writeByte(length);
+        out.write(bytes);
+    }
+    
+    static String readString(DataInput in) throws IOException {
+        int length = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 28) {
+                throw new IOException("Malformed string length");
+            }
+            b = in.readUnsignedByte();
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    static void writeStudent(Student student, DataOutput out) throws IOException {
+        LocalDate dateOfBirth = student.getDateOfBirth();
+        out.writeDouble(student.getGpa());
+        out.writeByte(student.getYearOfStudy());
+        out.writeInt(dateOfBirth != null ? (int) dateOfBirth.toEpochDay() : NO_DATE);
+        writeString(student.getStudentId(), out);
+        writeString(student.getFirstName(), out);
+        writeString(student.getLastName(), out);
+        writeString(student.getEmail(), out);
+        writeString(student.getCourse(), out);
+    }
+    
+    static Student readStudent(DataInput in) throws IOException {
+        double gpa = in.readDouble();
+        int yearOfStudy = in.readByte();
+        int epochDay = in.readInt();
+        String studentId = readString(in);
+        String firstName = readString(in);
+        String lastName = readString(in);
+        String email = readString(in);
+        String course = readString(in);
+        LocalDate dateOfBirth = epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null;
+        return new Student(firstName, lastName, dateOfBirth, email, studentId, course, yearOfStudy, gpa);
+    }
+    
+    static void writeStudents(List<Student> students, DataOutput out) throws IOException {
+        out.writeInt(students.size());
+        for (Student student : students) {
+            writeStudent(student, out);
+        }
+    }
+    
+    static List<Student> readStudents(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid student count: " + count);
+        }
+        // Each record is at least 18 bytes, so a bogus count cannot allocate much
+        List<Student> students = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            students.add(readStudent(in));
+        }
+        return students;
+    }
+}
@@ -0,0 +1,396 @@
+package com.dkit.oop.network;
+
+import com.dkit.oop.controllers.StudentController;
+import com.dkit.oop.dao.ConcurrentStudentDAO;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Non-blocking server for the same line protocol as StudentServer
+ * Demonstrates java.nio selectors as an alternative to a thread per client
+ *
+ * One acceptor thread hands connections round-robin to a few worker
+ * threads, each running its own Selector. An idle connection costs only its
+ * channel, its selection key and a small attachment: the direct read and
+ * write buffers belong to the worker and are reused for every connection it
+ * serves. Bytes are only copied into per-connection storage when a request
+ * line arrives split across reads, or when the client is too slow to take a
+ * response in one write.
+ */
+public class NioStudentServer {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int ACCEPT_BACKLOG = 1024;
+    
+    // Same charset the blocking server's readers and writers use
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    private final int port;
+    private final RequestProcessor requestProcessor;
+    private final Worker[] workers;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+    
+    public NioStudentServer(int port) {
+        this(port, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    }
+    
+    /**
+     * Create a server with a fixed number of selector threads
+     * @param port the port to listen on
+     * @param workerCount the number of selector threads sharing the connections
+     */
+    public NioStudentServer(int port, int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("At least one worker is required");
+        }
+        this.port = port;
+        // Workers run on several threads, so the DAO must be thread-safe
+        this.requestProcessor = new RequestProcessor(new StudentController(new ConcurrentStudentDAO()));
+        this.workers = new Worker[workerCount];
+        this.running = false;
+    }
+    
+    /**
+     * Start the server; the calling thread becomes the acceptor
+     */
+    public void start() {
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+            running = true;
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Worker();
+                new Thread(workers[i], "nio-worker-" + i).start();
+            }
+            System.out.println("NIO Student Server started on port " + port + " with " + workers.length + " workers");
+            
+            int next = 0;
+            while (running) {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                workers[next].register(channel);
+                next = (next + 1) % workers.length;
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Error starting server: " + e.getMessage());
+            }
+        } finally {
+            stop();
+        }
+    }
+    
+    /**
+     * Stop the server and close every connection
+     */
+    public void stop() {
+        running = false;
+        if (serverChannel != null && serverChannel.isOpen()) {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing server channel: " + e.getMessage());
+            }
+        }
+        for (Worker worker : workers) {
+            if (worker != null) {
+                worker.selector.wakeup();
+            }
+        }
+        System.out.println("Server stopped");
+    }
+    
+    /**
+     * Per-connection state, kept as small as possible for idle clients
+     */
+    private static final class Connection {
+        
+        // Unprocessed request bytes in read mode, or null when there are none
+        private ByteBuffer input;
+        
+        // Response bytes the socket would not take yet, or null when drained
+        private ByteBuffer pendingOutput;
+    }
+    
+    /**
+     * Selector loop serving a share of the connections
+     */
+    private final class Worker implements Runnable {
+        
+        private final Selector selector;
+        private final Queue<SocketChannel> newChannels;
+        private final ByteBuffer readBuffer;
+        private final ByteBuffer writeBuffer;
+        private final CharsetEncoder encoder;
+        private final StringBuilder response;
+        private char[] responseChars;
+        private byte[] lineBytes;
+        
+        Worker() throws IOException {
+            this.selector = Selector.open();
+            this.newChannels = new ConcurrentLinkedQueue<>();
+            this.readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            this.writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            this.encoder = CHARSET.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.response = new StringBuilder(BUFFER_SIZE);
+            this.responseChars = new char[BUFFER_SIZE];
+            this.lineBytes = new byte[256];
+        }
+        
+        void register(SocketChannel channel) {
+            newChannels.add(channel);
+            selector.wakeup();
+        }
+        
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    
+                    SocketChannel channel;
+                    while ((channel = newChannels.poll()) != null) {
+                        try {
+                            channel.register(selector, SelectionKey.OP_READ, new Connection());
+                        } catch (ClosedChannelException e) {
+                            // Client went away before we got to it
+                        }
+                    }
+                    
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        handle(key);
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                System.err.println("Error in NIO worker: " + e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    close(key);
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing selector: " + e.getMessage());
+                }
+            }
+        }
+        
+        private void handle(SelectionKey key) {
+            if (!key.isValid()) {
+                return;
+            }
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isWritable()) {
+                    channel.write(connection.pendingOutput);
+                    if (connection.pendingOutput.hasRemaining()) {
+                        return;
+                    }
+                    connection.pendingOutput = null;
+                    
+                    // Requests that queued up behind the slow write
+                    if (connection.input != null) {
+                        processLines(channel, connection, connection.input);
+                        keepRemainingInput(connection, connection.input);
+                    }
+                } else if (key.isReadable()) {
+                    readBuffer.clear();
+                    if (channel.read(readBuffer) < 0) {
+                        close(key);
+                        return;
+                    }
+                    readBuffer.flip();
+                    
+                    ByteBuffer source = readBuffer;
+                    if (connection.input != null) {
+                        connection.input = concat(connection.input, readBuffer);
+                        source = connection.input;
+                    }
+                    processLines(channel, connection, source);
+                    keepRemainingInput(connection, source);
+                }
+                
+                flush(channel, connection);
+                if (connection.pendingOutput == null && connection.input != null
+                        && connection.input.remaining() > MAX_LINE_LENGTH) {
+                    // A request line this long is not a real client
+                    close(key);
+                    return;
+                }
+                // Stop reading while a response is backed up, so a slow client cannot queue unbounded work
+                key.interestOps(connection.pendingOutput != null ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            } catch (IOException e) {
+                close(key);
+            }
+        }
+        
+        /**
+         * Answer every complete request line in the source, stopping early if
+         * the socket stops accepting output
+         */
+        private void processLines(SocketChannel channel, Connection connection, ByteBuffer source) throws IOException {
+            while (connection.pendingOutput == null) {
+                int lineEnd = indexOfNewline(source);
+                if (lineEnd < 0) {
+                    return;
+                }
+                String request = decodeLine(source, source.position(), lineEnd);
+                source.position(lineEnd + 1);
+                
+                // Responses are rendered into the worker's scratch buffers, not a fresh String each time
+                response.setLength(0);
+                requestProcessor.processRequest(request, response);
+                response.append('\n');
+                if (responseChars.length < response.length()) {
+                    responseChars = new char[response.length()];
+                }
+                response.getChars(0, response.length(), responseChars, 0);
+                encode(channel, connection, CharBuffer.wrap(responseChars, 0, response.length()));
+                trimScratch();
+            }
+        }
+        
+        /**
+         * Let go of scratch space grown for an unusually large response
+         */
+        private void trimScratch() {
+            if (responseChars.length > BUFFER_SIZE) {
+                responseChars = new char[BUFFER_SIZE];
+                response.setLength(0);
+                response.trimToSize();
+                response.ensureCapacity(BUFFER_SIZE);
+            }
+        }
+        
+        private int indexOfNewline(ByteBuffer source) {
+            for (int i = source.position(); i < source.limit(); i++) {
+                if (source.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        private String decodeLine(ByteBuffer source, int start, int end) {
+            if (end > start && source.get(end - 1) == '\r') {
+                end--;
+            }
+            int length = end - start;
+            if (lineBytes.length < length) {
+                lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+            }
+            source.get(start, lineBytes, 0, length);
+            return new String(lineBytes, 0, length, CHARSET);
+        }
+        
+        /**
+         * Encode characters into the shared write buffer, writing it out each
+         * time it fills. If the socket backs up, the rest of the characters go
+         * to the connection's pending output instead.
+         */
+        private void encode(SocketChannel channel, Connection connection, CharBuffer chars) throws IOException {
+            encoder.reset();
+            while (connection.pendingOutput == null) {
+                CoderResult result = encoder.encode(chars, writeBuffer, true);
+                if (result.isOverflow()) {
+                    flush(channel, connection);
+                    continue;
+                }
+                return;
+            }
+            if (chars.hasRemaining()) {
+                connection.pendingOutput = concat(connection.pendingOutput, CHARSET.encode(chars));
+            }
+        }
+        
+        /**
+         * Write out the shared write buffer; whatever the socket does not take
+         * moves to the connection so the buffer is free for the next one
+         */
+        private void flush(SocketChannel channel, Connection connection) throws IOException {
+            writeBuffer.flip();
+            if (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+                if (writeBuffer.hasRemaining()) {
+                    connection.pendingOutput = concat(connection.pendingOutput, writeBuffer);
+                }
+            }
+            writeBuffer.clear();
+        }
+        
+        private void keepRemainingInput(Connection connection, ByteBuffer source) {
+            if (!source.hasRemaining()) {
+                connection.input = null;
+            } else if (source != connection.input) {
+                connection.input = concat(null, source);
+            }
+        }
+        
+        private void close(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                System.err.println("Error closing client channel: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Copy the remaining bytes of two buffers into a new heap buffer in read mode
+     * @param first bytes to put first, or null
+     * @param second bytes to append; consumed by this call
+     */
+    private static ByteBuffer concat(ByteBuffer first, ByteBuffer second) {
+        int firstLength = first == null ? 0 : first.remaining();
+        ByteBuffer combined = ByteBuffer.allocate(firstLength + second.remaining());
+        if (first != null) {
+            combined.put(first);
+        }
+        combined.put(second);
+        combined.flip();
+        return combined;
+    }
+    
+    /**
+     * Main method to start the NIO server
+     */
+    public static void main(String[] args) {
+        int port = 8080; // Default port
+        if (args.length > 0) {
+            try {
+                port = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid port number, using default: " + port);
+            }
+        }
+        
+        NioStudentServer server = new NioStudentServer(port);
+        
+        // Add shutdown hook to gracefully stop the server
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        
+        server.start();
+    }
+}
@@ -0,0 +1,351 @@
+package com.dkit.oop.network;
+
+import com.dkit.oop.controllers.StudentController;
+import com.dkit.oop.models.Student;
+import com.dkit.oop.utils.JsonUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Request processor for the student line protocol (COMMAND|arg)
+ * Shared by StudentServer and NioStudentServer so both speak the same protocol
+ *
+ * StudentServer can also switch a connection to BinaryProtocol frames; the
+ * same handlers answer both, through a Responder for each wire format.
+ *
+ * Responses are written straight to an Appendable, so a large student list
+ * is streamed to the client as JSON instead of being built up as one String
+ * and then copied again to prepend the status.
+ *
+ * Every text response is exactly one line, so a client can keep a connection
+ * open and pipeline requests. JSON never contains a raw line break; plain
+ * text and error bodies are escaped with appendEscaped.
+ *
+ * With a ResponseCache, answers to the read-only list and statistics
+ * commands are rendered once per controller version and then served as
+ * stored text or bytes. Those answers are rendered in memory before being
+ * sent, rather than streamed.
+ */
+class RequestProcessor {
+    
+    private final StudentController studentController;
+    private final ResponseCache cache;
+    
+    RequestProcessor(StudentController studentController) {
+        this(studentController, null);
+    }
+    
+    /**
+     * @param studentController the controller to run commands against
+     * @param cache where to keep rendered responses, or null to render every time
+     */
+    RequestProcessor(StudentController studentController, ResponseCache cache) {
+        this.studentController = studentController;
+        this.cache = cache;
+    }
+    
+    /**
+     * Process client requests
+     * @param request the client request
+     * @return response to send back to client
+     */
+    String processRequest(String request) {
+        StringBuilder response = new StringBuilder();
+        try {
+            processRequest(request, response);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return response.toString();
+    }
+    
+    /**
+     * Process a client request, writing the response as it is produced
+     * @param request the client request
+     * @param out where to write the response, without the trailing newline
+     * @throws IOException if writing to the client fails
+     */
+    void processRequest(String request, Appendable out) throws IOException {
+        try {
+            String[] parts = request.split("\\|");
+            if (parts.length == 0) {
+                out.append("ERROR|Invalid request format");
+                return;
+            }
+            
+            String command = parts[0].toUpperCase();
+            int opcode = BinaryProtocol.opcodeOf(command);
+            String argument = opcode == BinaryProtocol.UNKNOWN_COMMAND ? command
+                    : parts.length > 1 ? parts[1] : null;
+            if (cache != null && isCacheable(opcode)) {
+                String key = cacheKey('T', opcode, argument);
+                long version = studentController.getVersion();
+                String response = cache.getText(key, version);
+                if (response == null) {
+                    StringBuilder rendered = new StringBuilder();
+                    dispatch(opcode, argument, new TextResponder(rendered));
+                    response = rendered.toString();
+                    cache.putText(key, version, response);
+                }
+                out.append(response);
+                return;
+            }
+            dispatch(opcode, argument, new TextResponder(out));
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            // Handlers look everything up before writing, so nothing has been sent yet
+            appendEscaped(out.append("ERROR|Server error: "), String.valueOf(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Append a text or error body on one line, writing backslash, newline
+     * and carriage return as \\, \n and \r
+     * @param out where to write
+     * @param text the body, which may span several lines
+     * @throws IOException if writing fails
+     */
+    static void appendEscaped(Appendable out, String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+    
+    /**
+     * Process a binary request frame
+     * @param frame the opcode followed by an optional string argument
+     * @param out where to write the response frame body; must be empty
+     */
+    void processBinaryRequest(byte[] frame, ByteArrayOutputStream out) {
+        DataOutputStream data = new DataOutputStream(out);
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame, 1, frame.length - 1));
+            String argument = in.available() > 0 ? BinaryProtocol.readString(in) : null;
+            int opcode = frame[0] & 0xFF;
+            if (cache != null && isCacheable(opcode)) {
+                String key = cacheKey('B', opcode, argument);
+                long version = studentController.getVersion();
+                byte[] response = cache.getBytes(key, version);
+                if (response == null) {
+                    dispatch(opcode, argument, new BinaryResponder(data));
+                    cache.putBytes(key, version, out.toByteArray());
+                } else {
+                    out.write(response);
+                }
+                return;
+            }
+            dispatch(opcode, argument, new BinaryResponder(data));
+        } catch (Exception e) {
+            out.reset();
+            try {
+                new BinaryResponder(data).error(e instanceof IOException
+                        ? "Invalid request format" : "Server error: " + e.getMessage());
+            } catch (IOException impossible) {
+                // A ByteArrayOutputStream never throws
+                throw new UncheckedIOException(impossible);
+            }
+        }
+    }
+    
+    /**
+     * Commands whose answer depends only on the argument and the data
+     */
+    private static boolean isCacheable(int opcode) {
+        return opcode == BinaryProtocol.GET_ALL_STUDENTS
+                || opcode == BinaryProtocol.GET_HONORS_STUDENTS
+                || opcode == BinaryProtocol.GET_STATISTICS
+                || opcode == BinaryProtocol.GET_STUDENTS_BY_COURSE;
+    }
+    
+    private static String cacheKey(char format, int opcode, String argument) {
+        return argument == null ? format + Integer.toString(opcode) : format + Integer.toString(opcode) + '|' + argument;
+    }
+    
+    /**
+     * Run a command, whichever protocol it arrived in
+     * @param opcode the command, as one of the BinaryProtocol opcodes
+     * @param argument the command's argument, the command name for unknown commands, or null
+     * @param out how to answer
+     */
+    private void dispatch(int opcode, String argument, Responder out) throws IOException {
+        switch (opcode) {
+            case BinaryProtocol.GET_ALL_STUDENTS:
+                out.students(studentController.getAllStudents());
+                break;
+            case BinaryProtocol.GET_STUDENT_BY_ID:
+                handleGetStudentById(argument, out);
+                break;
+            case BinaryProtocol.GET_STUDENTS_BY_COURSE:
+                handleGetStudentsByCourse(argument, out);
+                break;
+            case BinaryProtocol.GET_STUDENTS_BY_YEAR:
+                handleGetStudentsByYear(argument, out);
+                break;
+            case BinaryProtocol.GET_HONORS_STUDENTS:
+                out.students(studentController.getHonorsStudents());
+                break;
+            case BinaryProtocol.GET_STATISTICS:
+                out.text(studentController.getStudentStatistics());
+                break;
+            case BinaryProtocol.SEARCH_STUDENTS:
+                handleSearchStudents(argument, out);
+                break;
+            default:
+                out.error("Unknown command: " + argument);
+        }
+    }
+    
+    private void handleGetStudentById(String studentId, Responder out) throws IOException {
+        if (studentId == null) {
+            out.error("Missing student ID");
+            return;
+        }
+        
+        var student = studentController.findStudentById(studentId);
+        
+        if (student.isPresent()) {
+            out.student(student.get());
+        } else {
+            out.error("Student not found");
+        }
+    }
+    
+    private void handleGetStudentsByCourse(String course, Responder out) throws IOException {
+        if (course == null) {
+            out.error("Missing course name");
+            return;
+        }
+        
+        out.students(studentController.getStudentsByCourse(course));
+    }
+    
+    private void handleGetStudentsByYear(String argument, Responder out) throws IOException {
+        if (argument == null) {
+            out.error("Missing year");
+            return;
+        }
+        
+        int year;
+        try {
+            year = Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            out.error("Invalid year format");
+            return;
+        }
+        out.students(studentController.getStudentsByYear(year));
+    }
+    
+    private void handleSearchStudents(String searchTerm, Responder out) throws IOException {
+        if (searchTerm == null) {
+            out.error("Missing search term");
+            return;
+        }
+        
+        out.students(studentController.searchStudentsByName(searchTerm));
+    }
+    
+    /**
+     * How a handler's answer is put on the wire
+     */
+    private interface Responder {
+        
+        void student(Student student) throws IOException;
+        
+        void students(List<Student> students) throws IOException;
+        
+        void text(String text) throws IOException;
+        
+        void error(String message) throws IOException;
+    }
+    
+    /**
+     * STATUS|body lines with students as JSON
+     */
+    private static final class TextResponder implements Responder {
+        
+        private final Appendable out;
+        
+        TextResponder(Appendable out) {
+            this.out = out;
+        }
+        
+        @Override
+        public void student(Student student) throws IOException {
+            out.append("SUCCESS|");
+            JsonUtils.writeStudent(student, out);
+        }
+        
+        @Override
+        public void students(List<Student> students) throws IOException {
+            out.append("SUCCESS|");
+            JsonUtils.writeStudents(students, out);
+        }
+        
+        @Override
+        public void text(String text) throws IOException {
+            appendEscaped(out.append("SUCCESS|"), text);
+        }
+        
+        @Override
+        public void error(String message) throws IOException {
+            appendEscaped(out.append("ERROR|"), message);
+        }
+    }
+    
+    /**
+     * A response kind byte followed by binary records
+     */
+    private static final class BinaryResponder implements Responder {
+        
+        private final DataOutputStream out;
+        
+        BinaryResponder(DataOutputStream out) {
+            this.out = out;
+        }
+        
+        @Override
+        public void student(Student student) throws IOException {
+            out.writeByte(BinaryProtocol.STUDENT);
+            BinaryProtocol.writeStudent(student, out);
+        }
+        
+        @Override
+        public void students(List<Student> students) throws IOException {
+            out.writeByte(BinaryProtocol.STUDENTS);
+            BinaryProtocol.writeStudents(students, out);
+        }
+        
+        @Override
+        public void text(String text) throws IOException {
+            out.writeByte(BinaryProtocol.TEXT);
+            BinaryProtocol.writeString(text, out);
+        }
+        
+        @Override
+        public void error(String message) throws IOException {
+            out.writeByte(BinaryProtocol.ERROR);
+            BinaryProtocol.writeString(message, out);
+        }
+    }
+}
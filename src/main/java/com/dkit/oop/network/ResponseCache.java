@@ -0,0 +1,188 @@
+package com.dkit.oop.network;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of rendered server responses
+ * Demonstrates LinkedHashMap access order and version-based invalidation
+ *
+ * Each entry remembers the StudentController version it was rendered at.
+ * A lookup with a newer version finds the entry stale, drops it and
+ * reports a miss, so any write through the controller invalidates every
+ * response rendered before it without the writer touching the cache. A
+ * lookup with an older version, from a reader that started just before a
+ * write, misses but leaves the newer entry in place.
+ * Entries are weighed by their approximate size in memory, and the least
+ * recently used ones are evicted once the total passes the budget.
+ */
+public final class ResponseCache {
+    
+    // Rough per-entry cost of the map node, key and value headers
+    private static final int ENTRY_OVERHEAD = 96;
+    
+    private final long maxWeight;
+    private final long maxEntryWeight;
+    private final LinkedHashMap<String, Entry> entries;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    
+    /**
+     * @param maxWeight the most memory, in bytes, that cached responses may take
+     */
+    public ResponseCache(long maxWeight) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxWeight = maxWeight;
+        // One huge response should not flush everything else
+        this.maxEntryWeight = Math.max(1, maxWeight / 8);
+        this.entries = new LinkedHashMap<>(64, 0.75f, true);
+    }
+    
+    /**
+     * Look up a text response
+     * @param key the command and argument
+     * @param version the controller's current version
+     * @return the response, or null if it is missing or stale
+     */
+    String getText(String key, long version) {
+        return (String) get(key, version);
+    }
+    
+    /**
+     * Look up a binary response frame body
+     * @param key the command and argument
+     * @param version the controller's current version
+     * @return the frame body, or null if it is missing or stale; must not be modified
+     */
+    byte[] getBytes(String key, long version) {
+        return (byte[]) get(key, version);
+    }
+    
+    /**
+     * Cache a text response
+     * @param version the controller version read before the response was rendered
+     */
+    void putText(String key, long version, String response) {
+        put(key, version, response, 2L * response.length());
+    }
+    
+    /**
+     * Cache a binary response frame body
+     * @param version the controller version read before the response was rendered
+     */
+    void putBytes(String key, long version, byte[] response) {
+        put(key, version, response, response.length);
+    }
+    
+    /**
+     * Drop every entry; the counters are kept
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+    
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    /**
+     * @return entries dropped to stay within the size budget
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    
+    /**
+     * @return entries dropped because a write made them stale
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+    
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+    
+    /**
+     * @return approximate bytes held by cached responses
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("ResponseCache{entries=%d, weight=%d/%d, hits=%d, misses=%d, evictions=%d, invalidations=%d}",
+                entries.size(), weight, maxWeight, hits, misses, evictions, invalidations);
+    }
+    
+    private synchronized Object get(String key, long version) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.version < version) {
+            entries.remove(key);
+            weight -= entry.weight;
+            invalidations++;
+            misses++;
+            return null;
+        }
+        if (entry.version > version) {
+            // Rendered after a write this reader has not seen yet; keep it for later readers
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+    
+    private synchronized void put(String key, long version, Object value, long valueWeight) {
+        long entryWeight = valueWeight + 2L * key.length() + ENTRY_OVERHEAD;
+        if (entryWeight > maxEntryWeight) {
+            return;
+        }
+        Entry previous = entries.get(key);
+        if (previous != null) {
+            // A slower request may finish after a faster one rendered newer data
+            if (previous.version > version) {
+                return;
+            }
+            weight -= previous.weight;
+        }
+        entries.put(key, new Entry(version, value, entryWeight));
+        weight += entryWeight;
+        
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight) {
+            weight -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+    
+    private static final class Entry {
+        
+        private final long version;
+        private final Object value;
+        private final long weight;
+        
+        private Entry(long version, Object value, long weight) {
+            this.version = version;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
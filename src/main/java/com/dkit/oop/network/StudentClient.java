@@ -1,21 +1,94 @@
 package com.dkit.oop.network;
 
+import com.dkit.oop.models.Student;
+import com.dkit.oop.utils.JsonUtils;
+
 import java.io.*;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Client class for connecting to the Student Server
  * Demonstrates socket programming and client-server communication
+ *
+ * By default every request opens its own connection. A client created with
+ * a pool size keeps that many connections open and reuses them, since the
+ * server already reads many request lines per connection.
+ *
+ * A client created with Protocol.BINARY asks each new connection to switch
+ * to BinaryProtocol frames, and stays on text if the server declines.
+ * Responses are handed back in the text format either way, one line each,
+ * with line breaks in text and error bodies escaped as \n; fetchStudents
+ * returns decoded students without going through JSON.
  */
-public class StudentClient {
+public class StudentClient implements AutoCloseable {
+    
+    /**
+     * Wire format requested for new connections
+     */
+    public enum Protocol {
+        /** COMMAND|arg lines answered with STATUS|body lines */
+        TEXT,
+        /** Length-prefixed frames with numeric opcodes and binary student records */
+        BINARY
+    }
+    
+    // Requests written ahead of their responses; small enough that the
+    // request lines always fit in the socket buffers, so neither side can
+    // block writing while the other is also writing
+    private static final int PIPELINE_WINDOW = 64;
     
     private final String host;
     private final int port;
+    private final Protocol protocol;
+    
+    // Bytes on the wire across all connections, negotiation included
+    private final LongAdder bytesSent;
+    private final LongAdder bytesReceived;
+    
+    // Keep-alive pool, only used when poolSize > 0
+    private final int poolSize;
+    private final Semaphore connectionPermits;
+    private final LinkedBlockingDeque<Connection> idleConnections;
     
     public StudentClient(String host, int port) {
+        this(host, port, 0);
+    }
+    
+    /**
+     * Create a client that keeps persistent connections to the server
+     * @param host the server host
+     * @param port the server port
+     * @param poolSize the maximum number of open connections, or 0 to connect per request
+     */
+    public StudentClient(String host, int port, int poolSize) {
+        this(host, port, poolSize, Protocol.TEXT);
+    }
+    
+    /**
+     * Create a client with a choice of wire format
+     * @param host the server host
+     * @param port the server port
+     * @param poolSize the maximum number of open connections, or 0 to connect per request
+     * @param protocol the wire format to ask the server for
+     */
+    public StudentClient(String host, int port, int poolSize, Protocol protocol) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Pool size cannot be negative");
+        }
         this.host = host;
         this.port = port;
+        this.protocol = protocol;
+        this.bytesSent = new LongAdder();
+        this.bytesReceived = new LongAdder();
+        this.poolSize = poolSize;
+        this.connectionPermits = new Semaphore(poolSize);
+        this.idleConnections = new LinkedBlockingDeque<>();
     }
     
     /**
@@ -24,18 +97,253 @@ public class StudentClient {
      * @return the server response
      */
     public String sendRequest(String request) {
-        try (Socket socket = new Socket(host, port);
-             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-            
-            out.println(request);
-            return in.readLine();
-            
+        if (poolSize > 0) {
+            List<String> responses = sendPipelined(List.of(request));
+            return responses.get(0);
+        }
+        
+        try (Socket socket = new Socket(host, port)) {
+            List<String> responses = new ArrayList<>(1);
+            exchange(new Connection(socket, protocol, bytesSent, bytesReceived), List.of(request), 0, 1, responses);
+            return responses.get(0);
         } catch (IOException e) {
             return "ERROR|Connection failed: " + e.getMessage();
         }
     }
     
+    /**
+     * Send several requests over one pooled connection, writing ahead of the
+     * responses, which the server sends back in request order
+     * @param requests the requests to send
+     * @return the responses, in the same order as the requests
+     */
+    public List<String> sendPipelined(List<String> requests) {
+        if (poolSize == 0) {
+            List<String> responses = new ArrayList<>(requests.size());
+            for (String request : requests) {
+                responses.add(sendRequest(request));
+            }
+            return responses;
+        }
+        
+        List<String> responses = new ArrayList<>(requests.size());
+        Connection connection;
+        try {
+            connection = borrowConnection();
+        } catch (IOException e) {
+            fillWithErrors(responses, requests.size(), "ERROR|Connection failed: " + e.getMessage());
+            return responses;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fillWithErrors(responses, requests.size(), "ERROR|Interrupted waiting for a connection");
+            return responses;
+        }
+        
+        boolean reusable = false;
+        try {
+            for (int start = 0; start < requests.size(); start += PIPELINE_WINDOW) {
+                int end = Math.min(start + PIPELINE_WINDOW, requests.size());
+                exchange(connection, requests, start, end, responses);
+            }
+            reusable = true;
+        } catch (IOException e) {
+            fillWithErrors(responses, requests.size(), "ERROR|Connection failed: " + e.getMessage());
+        } finally {
+            // After any failure the stream position is unknown, so the connection cannot be reused
+            if (reusable) {
+                releaseConnection(connection);
+            } else {
+                closeQuietly(connection);
+                connectionPermits.release();
+            }
+        }
+        return responses;
+    }
+    
+    /**
+     * Send a request that is answered with students and decode them
+     * In binary mode the records are read straight off the wire, without JSON.
+     * @param request the request, e.g. GET_STUDENTS_BY_YEAR|2
+     * @return the students in the response; one for GET_STUDENT_BY_ID
+     * @throws IOException if the connection fails or the server answers with an error
+     */
+    public List<Student> fetchStudents(String request) throws IOException {
+        if (poolSize == 0) {
+            try (Socket socket = new Socket(host, port)) {
+                return fetchStudents(new Connection(socket, protocol, bytesSent, bytesReceived), request);
+            }
+        }
+        
+        Connection connection;
+        try {
+            connection = borrowConnection();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection");
+        }
+        boolean reusable = false;
+        try {
+            List<Student> students = fetchStudents(connection, request);
+            reusable = true;
+            return students;
+        } finally {
+            if (reusable) {
+                releaseConnection(connection);
+            } else {
+                closeQuietly(connection);
+                connectionPermits.release();
+            }
+        }
+    }
+    
+    /**
+     * @return bytes written to the server so far, over all connections
+     */
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+    
+    /**
+     * @return bytes read from the server so far, over all connections
+     */
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+    
+    /**
+     * Write requests[start, end) and read their responses, in text form
+     */
+    private static void exchange(Connection connection, List<String> requests, int start, int end,
+                                 List<String> responses) throws IOException {
+        if (connection.binary) {
+            for (int i = start; i < end; i++) {
+                connection.writeFrame(requests.get(i));
+            }
+            connection.dataOut.flush();
+            for (int i = start; i < end; i++) {
+                responses.add(toText(connection.readFrame()));
+            }
+            return;
+        }
+        
+        for (int i = start; i < end; i++) {
+            connection.out.write(requests.get(i));
+            connection.out.write('\n');
+        }
+        connection.out.flush();
+        for (int i = start; i < end; i++) {
+            String response = connection.in.readLine();
+            if (response == null) {
+                throw new EOFException("Server closed the connection");
+            }
+            responses.add(response);
+        }
+    }
+    
+    private static List<Student> fetchStudents(Connection connection, String request) throws IOException {
+        if (!connection.binary) {
+            List<String> responses = new ArrayList<>(1);
+            exchange(connection, List.of(request), 0, 1, responses);
+            String response = responses.get(0);
+            if (!response.startsWith("SUCCESS|")) {
+                throw new IOException(response);
+            }
+            String json = response.substring("SUCCESS|".length());
+            try {
+                return JsonUtils.parseStudentsFromJson(json.startsWith("{") ? "[" + json + "]" : json);
+            } catch (RuntimeException e) {
+                throw new IOException("Response is not a list of students", e);
+            }
+        }
+        
+        connection.writeFrame(request);
+        connection.dataOut.flush();
+        DataInputStream frame = connection.readFrame();
+        int kind = frame.readUnsignedByte();
+        switch (kind) {
+            case BinaryProtocol.STUDENT:
+                List<Student> students = new ArrayList<>(1);
+                students.add(BinaryProtocol.readStudent(frame));
+                return students;
+            case BinaryProtocol.STUDENTS:
+                return BinaryProtocol.readStudents(frame);
+            case BinaryProtocol.ERROR:
+                throw new IOException("ERROR|" + BinaryProtocol.readString(frame));
+            default:
+                throw new IOException("Response is not a list of students");
+        }
+    }
+    
+    /**
+     * Render a binary response exactly as the text protocol would have sent it
+     */
+    private static String toText(DataInputStream frame) throws IOException {
+        int kind = frame.readUnsignedByte();
+        StringBuilder text = new StringBuilder();
+        switch (kind) {
+            case BinaryProtocol.STUDENT:
+                JsonUtils.writeStudent(BinaryProtocol.readStudent(frame), text.append("SUCCESS|"));
+                break;
+            case BinaryProtocol.STUDENTS:
+                JsonUtils.writeStudents(BinaryProtocol.readStudents(frame), text.append("SUCCESS|"));
+                break;
+            case BinaryProtocol.TEXT:
+                RequestProcessor.appendEscaped(text.append("SUCCESS|"), BinaryProtocol.readString(frame));
+                break;
+            case BinaryProtocol.ERROR:
+                RequestProcessor.appendEscaped(text.append("ERROR|"), BinaryProtocol.readString(frame));
+                break;
+            default:
+                throw new IOException("Unknown response kind: " + kind);
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Close all idle pooled connections
+     */
+    @Override
+    public void close() {
+        Connection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            closeQuietly(connection);
+        }
+    }
+    
+    private Connection borrowConnection() throws IOException, InterruptedException {
+        connectionPermits.acquire();
+        Connection connection = idleConnections.pollFirst();
+        if (connection != null) {
+            return connection;
+        }
+        try {
+            return new Connection(new Socket(host, port), protocol, bytesSent, bytesReceived);
+        } catch (IOException e) {
+            connectionPermits.release();
+            throw e;
+        }
+    }
+    
+    private void releaseConnection(Connection connection) {
+        // Most recently used first, so idle connections beyond demand age out together
+        idleConnections.offerFirst(connection);
+        connectionPermits.release();
+    }
+    
+    private static void fillWithErrors(List<String> responses, int count, String error) {
+        while (responses.size() < count) {
+            responses.add(error);
+        }
+    }
+    
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.socket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing connection: " + e.getMessage());
+        }
+    }
+    
     /**
      * Get all students from server
      * @return server response
@@ -81,7 +389,7 @@ public class StudentClient {
     
     /**
      * Get statistics from server
-     * @return server response
+     * @return server response, its lines separated by an escaped \n
      */
     public String getStatistics() {
         return sendRequest("GET_STATISTICS");
@@ -185,6 +493,7 @@ public class StudentClient {
     
     /**
      * Main method to run the client
+     * Usage: StudentClient [host] [port] [text|binary]
      */
     public static void main(String[] args) {
         String host = "localhost";
@@ -201,7 +510,117 @@ public class StudentClient {
             }
         }
         
-        StudentClient client = new StudentClient(host, port);
+        Protocol protocol = Protocol.TEXT; // Default protocol
+        if (args.length >= 3) {
+            try {
+                protocol = Protocol.valueOf(args[2].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid protocol, using default: " + protocol);
+            }
+        }
+        
+        StudentClient client = new StudentClient(host, port, 0, protocol);
         client.runInteractive();
     }
+    
+    /**
+     * A persistent connection with buffered streams set up once
+     * Binary connections use the data streams, text connections the reader
+     * and writer; the other pair is null.
+     */
+    private static class Connection {
+        
+        private final Socket socket;
+        private final boolean binary;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+        private final DataInputStream dataIn;
+        private final DataOutputStream dataOut;
+        private final ByteArrayOutputStream frameBody;
+        
+        Connection(Socket socket, Protocol protocol, LongAdder bytesSent, LongAdder bytesReceived) throws IOException {
+            socket.setTcpNoDelay(true);
+            this.socket = socket;
+            InputStream rawIn = new CountingInputStream(socket.getInputStream(), bytesReceived);
+            OutputStream rawOut = new CountingOutputStream(socket.getOutputStream(), bytesSent);
+            this.binary = protocol == Protocol.BINARY && BinaryProtocol.negotiate(rawIn, rawOut);
+            if (binary) {
+                this.in = null;
+                this.out = null;
+                this.dataIn = new DataInputStream(new BufferedInputStream(rawIn));
+                this.dataOut = new DataOutputStream(new BufferedOutputStream(rawOut));
+                this.frameBody = new ByteArrayOutputStream(64);
+            } else {
+                this.in = new BufferedReader(new InputStreamReader(rawIn));
+                this.out = new BufferedWriter(new OutputStreamWriter(rawOut));
+                this.dataIn = null;
+                this.dataOut = null;
+                this.frameBody = null;
+            }
+        }
+        
+        void writeFrame(String request) throws IOException {
+            frameBody.reset();
+            BinaryProtocol.writeRequest(request, new DataOutputStream(frameBody));
+            BinaryProtocol.writeFrame(frameBody, dataOut);
+        }
+        
+        DataInputStream readFrame() throws IOException {
+            byte[] frame = BinaryProtocol.readFrame(dataIn);
+            if (frame == null) {
+                throw new EOFException("Server closed the connection");
+            }
+            return new DataInputStream(new ByteArrayInputStream(frame));
+        }
+    }
+    
+    private static final class CountingInputStream extends FilterInputStream {
+        
+        private final LongAdder count;
+        
+        CountingInputStream(InputStream in, LongAdder count) {
+            super(in);
+            this.count = count;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count.increment();
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                count.add(read);
+            }
+            return read;
+        }
+    }
+    
+    private static final class CountingOutputStream extends FilterOutputStream {
+        
+        private final LongAdder count;
+        
+        CountingOutputStream(OutputStream out, LongAdder count) {
+            super(out);
+            this.count = count;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.increment();
+        }
+        
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            count.add(length);
+        }
+    }
 }
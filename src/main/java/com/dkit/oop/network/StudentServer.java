@@ -1,32 +1,113 @@
 package com.dkit.oop.network;
 
 import com.dkit.oop.controllers.StudentController;
-import com.dkit.oop.models.Student;
-import com.dkit.oop.utils.JsonUtils;
+import com.dkit.oop.dao.CachingStudentDAO;
+import com.dkit.oop.dao.ConcurrentStudentDAO;
+import com.dkit.oop.dao.DurableStudentDAO;
+import com.dkit.oop.dao.JdbcStudentDAO;
+import com.dkit.oop.dao.StudentDAO;
 
 import java.io.*;
+import java.lang.reflect.Method;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.List;
+import java.nio.file.Paths;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Server class for handling student data requests over network
  * Demonstrates socket programming and concurrency with threads
+ *
+ * Clients are served either by a fixed pool of platform threads or by one
+ * virtual thread per connection, chosen at startup. In both modes a
+ * connection permit must be free before the next client is accepted, so
+ * clients beyond the limit wait in the accept backlog, and only a bounded
+ * number of requests are processed at any one time.
+ *
+ * Connections speak the text protocol unless the client negotiates
+ * BinaryProtocol frames when it connects. Responses to the read-only list
+ * and statistics commands are cached until the next write through the
+ * controller.
  */
 public class StudentServer {
     
+    /**
+     * How client connections are given threads
+     */
+    public enum ExecutionMode {
+        /** A fixed pool of platform threads; extra clients queue for a thread */
+        FIXED_POOL,
+        /** One virtual thread per connection, falling back to platform threads before Java 21 */
+        VIRTUAL_THREADS
+    }
+    
+    private static final int FIXED_POOL_SIZE = 10;
+    private static final int DEFAULT_MAX_CONNECTIONS = 10_000;
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final long ADMISSION_POLL_MILLIS = 100;
+    private static final int RESPONSE_BUFFER_SIZE = 8192;
+    private static final long DEFAULT_CACHE_BYTES = 16L * 1024 * 1024;
+    
     private final int port;
-    private final StudentController studentController;
+    private final ExecutionMode mode;
+    private final RequestProcessor requestProcessor;
+    private final ResponseCache responseCache;
     private final ExecutorService threadPool;
+    private final Semaphore connectionPermits;
+    private final Semaphore requestPermits;
     private ServerSocket serverSocket;
-    private boolean running;
+    private volatile boolean running;
     
     public StudentServer(int port) {
+        this(port, ExecutionMode.FIXED_POOL);
+    }
+    
+    public StudentServer(int port, ExecutionMode mode) {
+        this(port, mode, DEFAULT_MAX_CONNECTIONS, 4 * Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Create a server with explicit limits
+     * @param port the port to listen on
+     * @param mode how connections are given threads
+     * @param maxConnections the most clients connected at once; further clients wait to be accepted
+     * @param maxInFlight the most requests being processed at once across all clients
+     */
+    public StudentServer(int port, ExecutionMode mode, int maxConnections, int maxInFlight) {
+        // Client handlers run on many threads, so the DAO must be thread-safe
+        this(port, mode, maxConnections, maxInFlight,
+                new StudentController(new ConcurrentStudentDAO()), DEFAULT_CACHE_BYTES);
+    }
+    
+    /**
+     * Create a server over an existing controller
+     * @param port the port to listen on
+     * @param mode how connections are given threads
+     * @param maxConnections the most clients connected at once; further clients wait to be accepted
+     * @param maxInFlight the most requests being processed at once across all clients
+     * @param studentController the controller to serve; its DAO must be thread-safe
+     * @param cacheBytes memory for cached responses, or 0 to render every response
+     */
+    public StudentServer(int port, ExecutionMode mode, int maxConnections, int maxInFlight,
+                         StudentController studentController, long cacheBytes) {
+        if (maxConnections < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Connection and request limits must be positive");
+        }
+        if (cacheBytes < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
         this.port = port;
-        this.studentController = new StudentController();
-        this.threadPool = Executors.newFixedThreadPool(10); // Thread pool for handling clients
+        this.mode = mode;
+        this.responseCache = cacheBytes > 0 ? new ResponseCache(cacheBytes) : null;
+        this.requestProcessor = new RequestProcessor(studentController, responseCache);
+        this.threadPool = mode == ExecutionMode.VIRTUAL_THREADS
+                ? newVirtualThreadExecutor()
+                : Executors.newFixedThreadPool(FIXED_POOL_SIZE); // Thread pool for handling clients
+        this.connectionPermits = new Semaphore(maxConnections);
+        this.requestPermits = new Semaphore(maxInFlight);
         this.running = false;
     }
     
@@ -35,19 +116,36 @@ public class StudentServer {
      */
     public void start() {
         try {
-            serverSocket = new ServerSocket(port);
+            // Clients waiting for admission sit in the backlog, so make room for bursts
+            serverSocket = new ServerSocket(port, ACCEPT_BACKLOG);
             running = true;
-            System.out.println("Student Server started on port " + port);
+            System.out.println("Student Server started on port " + port + " (" + mode + ")");
             
             while (running) {
-                Socket clientSocket = serverSocket.accept();
+                // Admission control: do not accept another client until one has a permit
+                if (!connectionPermits.tryAcquire(ADMISSION_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                Socket clientSocket;
+                try {
+                    clientSocket = serverSocket.accept();
+                } catch (IOException e) {
+                    connectionPermits.release();
+                    throw e;
+                }
                 System.out.println("New client connected: " + clientSocket.getInetAddress());
+                clientSocket.setTcpNoDelay(true);
                 
                 // Handle each client in a separate thread
-                threadPool.submit(new ClientHandler(clientSocket, studentController));
+                threadPool.submit(new ClientHandler(clientSocket, requestProcessor, connectionPermits, requestPermits));
             }
         } catch (IOException e) {
-            System.err.println("Error starting server: " + e.getMessage());
+            // stop() closes the socket under a blocked accept; that is not an error
+            if (running) {
+                System.err.println("Error starting server: " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
             stop();
         }
@@ -69,144 +167,140 @@ public class StudentServer {
         System.out.println("Server stopped");
     }
     
+    /**
+     * @return the cache of rendered responses with its hit, miss and eviction counts, or null if disabled
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+    
+    /**
+     * Create a virtual-thread-per-task executor when the runtime has one.
+     * Looked up reflectively so the project still builds and runs on Java 17,
+     * where each connection gets a platform thread instead.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Virtual threads are not available, using a thread per connection");
+            return Executors.newCachedThreadPool();
+        }
+    }
+    
     /**
      * Client handler class for processing individual client requests
      */
     private static class ClientHandler implements Runnable {
         
         private final Socket clientSocket;
-        private final StudentController studentController;
+        private final RequestProcessor requestProcessor;
+        private final Semaphore connectionPermits;
+        private final Semaphore requestPermits;
         
-        public ClientHandler(Socket clientSocket, StudentController studentController) {
+        public ClientHandler(Socket clientSocket, RequestProcessor requestProcessor,
+                             Semaphore connectionPermits, Semaphore requestPermits) {
             this.clientSocket = clientSocket;
-            this.studentController = studentController;
+            this.requestProcessor = requestProcessor;
+            this.connectionPermits = connectionPermits;
+            this.requestPermits = requestPermits;
         }
         
         @Override
         public void run() {
             try (BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-                 PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true)) {
+                 PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), false)) {
                 
                 String inputLine;
                 while ((inputLine = in.readLine()) != null) {
-                    String response = processRequest(inputLine);
-                    out.println(response);
+                    // The client waits for the answer before sending frames, so
+                    // nothing is left in the reader's buffer when we switch
+                    if (inputLine.equals(BinaryProtocol.NEGOTIATION_REQUEST) && !in.ready()) {
+                        out.println(BinaryProtocol.NEGOTIATION_ACCEPTED);
+                        out.flush();
+                        serveBinary();
+                        return;
+                    }
+                    process(inputLine, out);
+                    out.println();
+                    
+                    // Pipelining clients send requests ahead; answer the whole batch in one flush
+                    if (!in.ready()) {
+                        out.flush();
+                    }
                 }
             } catch (IOException e) {
                 System.err.println("Error handling client: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             } finally {
                 try {
                     clientSocket.close();
                 } catch (IOException e) {
                     System.err.println("Error closing client socket: " + e.getMessage());
                 }
+                connectionPermits.release();
             }
         }
         
         /**
-         * Process client requests
-         * @param request the client request
-         * @return response to send back to client
+         * Process one request under an in-flight permit, so the number of
+         * requests working on the DAO and writing responses stays bounded
+         * however many clients are connected. The response streams into the
+         * writer's buffer, which sends it to the socket as it fills.
          */
-        private String processRequest(String request) {
+        private void process(String request, PrintWriter out) throws InterruptedException, IOException {
+            requestPermits.acquire();
             try {
-                String[] parts = request.split("\\|");
-                if (parts.length == 0) {
-                    return "ERROR|Invalid request format";
-                }
-                
-                String command = parts[0].toUpperCase();
-                
-                switch (command) {
-                    case "GET_ALL_STUDENTS":
-                        return handleGetAllStudents();
-                    case "GET_STUDENT_BY_ID":
-                        return handleGetStudentById(parts);
-                    case "GET_STUDENTS_BY_COURSE":
-                        return handleGetStudentsByCourse(parts);
-                    case "GET_STUDENTS_BY_YEAR":
-                        return handleGetStudentsByYear(parts);
-                    case "GET_HONORS_STUDENTS":
-                        return handleGetHonorsStudents();
-                    case "GET_STATISTICS":
-                        return handleGetStatistics();
-                    case "SEARCH_STUDENTS":
-                        return handleSearchStudents(parts);
-                    default:
-                        return "ERROR|Unknown command: " + command;
-                }
-            } catch (Exception e) {
-                return "ERROR|Server error: " + e.getMessage();
-            }
-        }
-        
-        private String handleGetAllStudents() {
-            List<Student> students = studentController.getAllStudents();
-            return "SUCCESS|" + JsonUtils.studentsToJson(students);
-        }
-        
-        private String handleGetStudentById(String[] parts) {
-            if (parts.length < 2) {
-                return "ERROR|Missing student ID";
-            }
-            
-            String studentId = parts[1];
-            var student = studentController.findStudentById(studentId);
-            
-            if (student.isPresent()) {
-                return "SUCCESS|" + JsonUtils.studentToJson(student.get());
-            } else {
-                return "ERROR|Student not found";
-            }
-        }
-        
-        private String handleGetStudentsByCourse(String[] parts) {
-            if (parts.length < 2) {
-                return "ERROR|Missing course name";
+                requestProcessor.processRequest(request, out);
+            } finally {
+                requestPermits.release();
             }
-            
-            String course = parts[1];
-            List<Student> students = studentController.getStudentsByCourse(course);
-            return "SUCCESS|" + JsonUtils.studentsToJson(students);
         }
         
-        private String handleGetStudentsByYear(String[] parts) {
-            if (parts.length < 2) {
-                return "ERROR|Missing year";
-            }
+        /**
+         * Serve the rest of the connection in BinaryProtocol frames. Each
+         * response is built in a reusable buffer, as its length goes first.
+         */
+        private void serveBinary() throws IOException, InterruptedException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+            ByteArrayOutputStream response = new ByteArrayOutputStream(RESPONSE_BUFFER_SIZE);
             
-            try {
-                int year = Integer.parseInt(parts[1]);
-                List<Student> students = studentController.getStudentsByYear(year);
-                return "SUCCESS|" + JsonUtils.studentsToJson(students);
-            } catch (NumberFormatException e) {
-                return "ERROR|Invalid year format";
-            }
-        }
-        
-        private String handleGetHonorsStudents() {
-            List<Student> students = studentController.getHonorsStudents();
-            return "SUCCESS|" + JsonUtils.studentsToJson(students);
-        }
-        
-        private String handleGetStatistics() {
-            String stats = studentController.getStudentStatistics();
-            return "SUCCESS|" + stats;
-        }
-        
-        private String handleSearchStudents(String[] parts) {
-            if (parts.length < 2) {
-                return "ERROR|Missing search term";
+            byte[] frame;
+            while ((frame = BinaryProtocol.readFrame(in)) != null) {
+                requestPermits.acquire();
+                try {
+                    requestProcessor.processBinaryRequest(frame, response);
+                    BinaryProtocol.writeFrame(response, out);
+                } finally {
+                    requestPermits.release();
+                }
+                
+                // Let go of a buffer grown for an unusually large response
+                if (response.size() > RESPONSE_BUFFER_SIZE * 16) {
+                    response = new ByteArrayOutputStream(RESPONSE_BUFFER_SIZE);
+                } else {
+                    response.reset();
+                }
+                if (in.available() == 0) {
+                    out.flush();
+                }
             }
-            
-            String searchTerm = parts[1];
-            List<Student> students = studentController.searchStudentsByName(searchTerm);
-            return "SUCCESS|" + JsonUtils.studentsToJson(students);
+            out.flush();
         }
     }
     
     /**
      * Main method to start the server
+     * Usage: StudentServer [port] [fixed_pool|virtual_threads] [dataDirectory|jdbcUrl]
+     * With a data directory, changes are kept in a DurableStudentDAO there
+     * and survive a restart. With a JDBC URL, e.g. jdbc:h2:./students, the
+     * students live in that database instead, and the table is created if it
+     * is missing; the driver must be on the class path. Lookups by ID are
+     * then cached, for up to a minute in case other programs change the table.
+     * The sample students are only added when neither is given.
      */
     public static void main(String[] args) {
         int port = 8080; // Default port
@@ -218,10 +312,56 @@ public class StudentServer {
             }
         }
         
-        StudentServer server = new StudentServer(port);
+        ExecutionMode mode = ExecutionMode.FIXED_POOL; // Default mode
+        if (args.length > 1) {
+            try {
+                mode = ExecutionMode.valueOf(args[1].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid execution mode, using default: " + mode);
+            }
+        }
+        
+        StudentDAO storeDAO = null;
+        AutoCloseable store = null;
+        if (args.length > 2) {
+            try {
+                if (args[2].startsWith("jdbc:")) {
+                    JdbcStudentDAO jdbcDAO = new JdbcStudentDAO(args[2], null, null);
+                    store = jdbcDAO;
+                    jdbcDAO.createSchema();
+                    storeDAO = new CachingStudentDAO(jdbcDAO, CachingStudentDAO.DEFAULT_MAXIMUM_SIZE, 60_000, 5_000);
+                } else {
+                    DurableStudentDAO durableDAO = new DurableStudentDAO(new ConcurrentStudentDAO(), Paths.get(args[2]));
+                    store = durableDAO;
+                    storeDAO = durableDAO;
+                }
+            } catch (IOException | IllegalStateException e) {
+                System.err.println("Error opening student store: " + e.getMessage());
+                // Only the JDBC store can fail after it was opened
+                if (store instanceof JdbcStudentDAO) {
+                    ((JdbcStudentDAO) store).close();
+                }
+                return;
+            }
+        }
+        
+        StudentServer server = storeDAO == null
+                ? new StudentServer(port, mode)
+                : new StudentServer(port, mode, DEFAULT_MAX_CONNECTIONS, 4 * Runtime.getRuntime().availableProcessors(),
+                        new StudentController(storeDAO), DEFAULT_CACHE_BYTES);
         
         // Add shutdown hook to gracefully stop the server
-        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        AutoCloseable openStore = store;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (openStore != null) {
+                try {
+                    openStore.close();
+                } catch (Exception e) {
+                    System.err.println("Error closing student store: " + e.getMessage());
+                }
+            }
+        }));
         
         server.start();
     }
@@ -2,8 +2,16 @@ package com.dkit.oop.utils;
 
 import com.dkit.oop.models.Student;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Simple JSON utility class for serialization and deserialization
@@ -13,28 +21,18 @@ public class JsonUtils {
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
+    // Students are rendered into a scratch buffer and handed on once it reaches this size
+    private static final int SCRATCH_FLUSH_SIZE = 8 * 1024;
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+    
     /**
      * Convert a Student object to JSON string
      * @param student the student to convert
      * @return JSON string representation
      */
     public static String studentToJson(Student student) {
-        if (student == null) {
-            return "null";
-        }
-        
-        StringBuilder json = new StringBuilder();
-        json.append("{");
-        json.append("\"studentId\":\"").append(escapeJson(student.getStudentId())).append("\",");
-        json.append("\"firstName\":\"").append(escapeJson(student.getFirstName())).append("\",");
-        json.append("\"lastName\":\"").append(escapeJson(student.getLastName())).append("\",");
-        json.append("\"dateOfBirth\":\"").append(student.getDateOfBirth().format(DATE_FORMATTER)).append("\",");
-        json.append("\"email\":\"").append(escapeJson(student.getEmail())).append("\",");
-        json.append("\"course\":\"").append(escapeJson(student.getCourse())).append("\",");
-        json.append("\"yearOfStudy\":").append(student.getYearOfStudy()).append(",");
-        json.append("\"gpa\":").append(student.getGpa());
-        json.append("}");
-        
+        StringBuilder json = new StringBuilder(192);
+        appendStudent(json, student);
         return json.toString();
     }
     
@@ -48,28 +46,95 @@ public class JsonUtils {
             return "null";
         }
         
-        StringBuilder json = new StringBuilder();
-        json.append("[");
+        StringBuilder json = new StringBuilder(2 + students.size() * 192);
+        appendStudents(json, students);
+        return json.toString();
+    }
+    
+    /**
+     * Write a student as JSON without building an intermediate String
+     * @param student the student to write
+     * @param out where to write the JSON
+     * @throws IOException if the destination fails
+     */
+    public static void writeStudent(Student student, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            appendStudent((StringBuilder) out, student);
+            return;
+        }
+        StringBuilder scratch = new StringBuilder(192);
+        appendStudent(scratch, student);
+        out.append(scratch);
+    }
+    
+    /**
+     * Write a list of students as a JSON array without building the whole
+     * array in memory. Students are rendered into one reusable scratch
+     * buffer that is handed to the destination every few kilobytes, so peak
+     * memory does not grow with the size of the list.
+     * @param students the list of students to write
+     * @param out where to write the JSON, e.g. a Writer or StringBuilder
+     * @throws IOException if the destination fails
+     */
+    public static void writeStudents(List<Student> students, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            appendStudents((StringBuilder) out, students);
+            return;
+        }
+        if (students == null) {
+            out.append("null");
+            return;
+        }
         
+        StringBuilder scratch = new StringBuilder(SCRATCH_FLUSH_SIZE + 256);
+        scratch.append('[');
         for (int i = 0; i < students.size(); i++) {
             if (i > 0) {
-                json.append(",");
+                scratch.append(',');
+            }
+            appendStudent(scratch, students.get(i));
+            if (scratch.length() >= SCRATCH_FLUSH_SIZE) {
+                out.append(scratch);
+                scratch.setLength(0);
             }
-            json.append(studentToJson(students.get(i)));
         }
-        
-        json.append("]");
-        return json.toString();
+        scratch.append(']');
+        out.append(scratch);
+    }
+    
+    /**
+     * Write a list of students as a JSON array into byte buffers
+     * @param students the list of students to write
+     * @param charset the character encoding to write
+     * @return a writer that fills caller-supplied ByteBuffers until the array is complete
+     */
+    public static StudentJsonWriter newStudentsWriter(List<Student> students, Charset charset) {
+        return new StudentJsonWriter(students, charset);
     }
     
     /**
      * Save a list of students to a JSON file
+     * The file is written through one reusable buffer, so the whole JSON
+     * document is never held in memory.
      * @param students the list of students to save
      * @param filePath the file path to save to
      */
     public static void saveStudentsToFile(List<Student> students, String filePath) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
-            writer.write(studentsToJson(students));
+        // Same encoding FileWriter used
+        StudentJsonWriter writer = newStudentsWriter(students, Charset.defaultCharset());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(FILE_BUFFER_SIZE);
+        
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            boolean finished;
+            do {
+                finished = writer.writeTo(buffer);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            } while (!finished);
         } catch (IOException e) {
             throw new RuntimeException("Error saving students to file", e);
         }
@@ -77,51 +142,166 @@ public class JsonUtils {
     
     /**
      * Load a list of students from a JSON file
+     * The file is parsed as it is read rather than loaded into one String.
      * @param filePath the file path to load from
      * @return List of Student objects
      */
     public static List<Student> loadStudentsFromFile(String filePath) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            StringBuilder content = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line);
-            }
-            return parseStudentsFromJson(content.toString());
+        List<Student> students = new ArrayList<>();
+        readStudentsFromFile(filePath, students::add);
+        return students;
+    }
+    
+    /**
+     * Stream students from a JSON file to a consumer, one at a time
+     * Memory use stays constant however large the file is, as long as the
+     * consumer does not keep the students.
+     * @param filePath the file path to load from
+     * @param consumer receives each student in file order
+     */
+    public static void readStudentsFromFile(String filePath, Consumer<Student> consumer) {
+        // Same encoding FileReader used; StudentJsonReader does its own buffering
+        try (StudentJsonReader reader = new StudentJsonReader(
+                new InputStreamReader(new FileInputStream(filePath), Charset.defaultCharset()))) {
+            readStudents(reader, consumer);
         } catch (IOException e) {
             throw new RuntimeException("Error loading students from file", e);
         }
     }
     
     /**
-     * Parse students from JSON string (simplified implementation)
-     * @param json the JSON string to parse
-     * @return List of Student objects
+     * Parse students from JSON string
+     * @param json a JSON array of students, as written by studentsToJson
+     * @return List of Student objects; empty for null or blank input
+     * @throws IllegalArgumentException if the JSON is malformed
      */
     public static List<Student> parseStudentsFromJson(String json) {
-        // This is a simplified parser - in a real application you'd use a proper JSON library
-        // For demonstration purposes, we'll return an empty list
-        // In practice, you would implement a proper JSON parser here
-        return new java.util.ArrayList<>();
+        List<Student> students = new ArrayList<>();
+        if (json == null || json.trim().isEmpty()) {
+            return students;
+        }
+        
+        try {
+            readStudents(new StudentJsonReader(new StringReader(json)), students::add);
+        } catch (IOException e) {
+            // A StringReader never throws
+            throw new UncheckedIOException(e);
+        }
+        return students;
+    }
+    
+    private static void readStudents(StudentJsonReader reader, Consumer<Student> consumer) throws IOException {
+        Student student;
+        while ((student = reader.readStudent()) != null) {
+            consumer.accept(student);
+        }
+    }
+    
+    // Rendering shared by the String, Appendable and ByteBuffer paths
+    
+    static void appendStudents(StringBuilder json, List<Student> students) {
+        if (students == null) {
+            json.append("null");
+            return;
+        }
+        
+        json.append('[');
+        for (int i = 0; i < students.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendStudent(json, students.get(i));
+        }
+        json.append(']');
+    }
+    
+    static void appendStudent(StringBuilder json, Student student) {
+        if (student == null) {
+            json.append("null");
+            return;
+        }
+        
+        json.append("{\"studentId\":\"");
+        appendEscaped(json, student.getStudentId());
+        json.append("\",\"firstName\":\"");
+        appendEscaped(json, student.getFirstName());
+        json.append("\",\"lastName\":\"");
+        appendEscaped(json, student.getLastName());
+        json.append("\",\"dateOfBirth\":\"");
+        appendDate(json, student.getDateOfBirth());
+        json.append("\",\"email\":\"");
+        appendEscaped(json, student.getEmail());
+        json.append("\",\"course\":\"");
+        appendEscaped(json, student.getCourse());
+        json.append("\",\"yearOfStudy\":").append(student.getYearOfStudy());
+        json.append(",\"gpa\":").append(student.getGpa());
+        json.append('}');
     }
     
     /**
-     * Escape special characters in JSON strings
-     * @param input the string to escape
-     * @return escaped string
+     * Append a string with JSON escapes in a single pass, copying unescaped
+     * runs in bulk. Only backslash, quote and the \b, \f, \n, \r and \t
+     * controls are escaped, as the JSON export always has.
      */
-    private static String escapeJson(String input) {
+    private static void appendEscaped(StringBuilder json, String input) {
         if (input == null) {
-            return "";
+            return;
         }
         
-        return input.replace("\\", "\\\\")
-                   .replace("\"", "\\\"")
-                   .replace("\b", "\\b")
-                   .replace("\f", "\\f")
-                   .replace("\n", "\\n")
-                   .replace("\r", "\\r")
-                   .replace("\t", "\\t");
+        int runStart = 0;
+        for (int i = firstEscapeIndex(input); i >= 0 && i < input.length(); i++) {
+            String replacement = escapeFor(input.charAt(i));
+            if (replacement != null) {
+                json.append(input, runStart, i).append(replacement);
+                runStart = i + 1;
+            }
+        }
+        json.append(input, runStart, input.length());
+    }
+    
+    private static int firstEscapeIndex(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (escapeFor(input.charAt(i)) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static String escapeFor(char c) {
+        switch (c) {
+            case '\\': return "\\\\";
+            case '"': return "\\\"";
+            case '\b': return "\\b";
+            case '\f': return "\\f";
+            case '\n': return "\\n";
+            case '\r': return "\\r";
+            case '\t': return "\\t";
+            default: return null;
+        }
+    }
+    
+    /**
+     * Append a date as yyyy-MM-dd without going through DateTimeFormatter
+     */
+    private static void appendDate(StringBuilder json, LocalDate date) {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            // Signed or five-digit years keep the formatter's exact output
+            json.append(date.format(DATE_FORMATTER));
+            return;
+        }
+        appendDigits(json, year, 4);
+        json.append('-');
+        appendDigits(json, date.getMonthValue(), 2);
+        json.append('-');
+        appendDigits(json, date.getDayOfMonth(), 2);
+    }
+    
+    private static void appendDigits(StringBuilder json, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            json.append((char) ('0' + value / divisor % 10));
+        }
     }
     
     /**
@@ -1,11 +1,20 @@
 package com.dkit.oop.utils;
 
 import com.dkit.oop.models.Student;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Comparator class demonstrating the Comparator interface
  * Provides different sorting strategies for Student objects
+ *
+ * For large lists, sort(List, Comparator) gives the same result as
+ * List.sort with these comparators, or chains of them, but works out each
+ * student's sort key only once; see StudentSortKeys.
  */
 public class StudentComparator {
     
@@ -127,10 +136,33 @@ public class StudentComparator {
         return Integer.compare(priority1, priority2);
     };
     
+    // Sort keys equivalent to each comparator above, for sort(List, Comparator)
+    private static final Map<Comparator<Student>, StudentSortKeys.Part[]> SORT_KEYS = new IdentityHashMap<>();
+    
+    static {
+        SORT_KEYS.put(BY_GPA_DESC, keys(StudentSortKeys.gpa(true)));
+        SORT_KEYS.put(BY_GPA_ASC, keys(StudentSortKeys.gpa(false)));
+        SORT_KEYS.put(BY_NAME, keys(StudentSortKeys.text(Student::getLastName, true),
+                                    StudentSortKeys.text(Student::getFirstName, true)));
+        SORT_KEYS.put(BY_YEAR_THEN_GPA, keys(StudentSortKeys.year(false), StudentSortKeys.gpa(true)));
+        SORT_KEYS.put(BY_COURSE_YEAR_GPA, keys(StudentSortKeys.text(Student::getCourse, true),
+                                               StudentSortKeys.year(false), StudentSortKeys.gpa(true)));
+        SORT_KEYS.put(BY_AGE_ASC, keys(StudentSortKeys.age(false)));
+        SORT_KEYS.put(BY_AGE_DESC, keys(StudentSortKeys.age(true)));
+        SORT_KEYS.put(BY_STUDENT_ID, keys(StudentSortKeys.text(Student::getStudentId, false)));
+        SORT_KEYS.put(BY_EMAIL, keys(StudentSortKeys.text(Student::getEmail, true)));
+        SORT_KEYS.put(BY_ACADEMIC_STATUS, keys(StudentSortKeys.academicStatus()));
+    }
+    
+    private static StudentSortKeys.Part[] keys(StudentSortKeys.Part... parts) {
+        return parts;
+    }
+    
     /**
      * Helper method to assign priority to academic status
+     * StudentSortKeys.academicStatus uses it too, so sort keys order statuses the same way.
      */
-    private static int getStatusPriority(String status) {
+    static int getStatusPriority(String status) {
         switch (status.toLowerCase()) {
             case "honors": return 1;
             case "good standing": return 2;
@@ -155,6 +187,55 @@ public class StudentComparator {
             result = result.thenComparing(comparators[i]);
         }
         
-        return result;
+        // If every link has a sort key, remember the combined key for sort
+        List<StudentSortKeys.Part> parts = new ArrayList<>();
+        for (Comparator<Student> comparator : comparators) {
+            StudentSortKeys.Part[] links = sortKeysOf(comparator);
+            if (links == null) {
+                return result;
+            }
+            parts.addAll(Arrays.asList(links));
+        }
+        return new KeyedComparator(result, parts.toArray(new StudentSortKeys.Part[0]));
+    }
+    
+    /**
+     * Sort students in place, with the same result as students.sort(comparator)
+     * Comparators from this class, and chains of them, are sorted by sort
+     * keys computed once per student; any other comparator is used as-is.
+     * @param students the students to sort
+     * @param comparator the order to sort them in
+     */
+    public static void sort(List<Student> students, Comparator<Student> comparator) {
+        StudentSortKeys.Part[] parts = sortKeysOf(comparator);
+        if (parts == null || !StudentSortKeys.sort(students, parts)) {
+            students.sort(comparator);
+        }
+    }
+    
+    private static StudentSortKeys.Part[] sortKeysOf(Comparator<Student> comparator) {
+        if (comparator instanceof KeyedComparator) {
+            return ((KeyedComparator) comparator).parts;
+        }
+        return SORT_KEYS.get(comparator);
+    }
+    
+    /**
+     * A chained comparator that also carries its combined sort key
+     */
+    private static final class KeyedComparator implements Comparator<Student> {
+        
+        private final Comparator<Student> comparator;
+        private final StudentSortKeys.Part[] parts;
+        
+        private KeyedComparator(Comparator<Student> comparator, StudentSortKeys.Part[] parts) {
+            this.comparator = comparator;
+            this.parts = parts;
+        }
+        
+        @Override
+        public int compare(Student s1, Student s2) {
+            return comparator.compare(s1, s2);
+        }
     }
 }
@@ -0,0 +1,464 @@
+package com.dkit.oop.utils;
+
+import com.dkit.oop.dao.StudentDAO;
+import com.dkit.oop.models.Student;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming CSV import into a StudentDAO
+ * Demonstrates a producer-consumer pipeline with bounded queues
+ *
+ * Three stages run on their own threads:
+ *   reader  - reads lines into numbered batches
+ *   parsers - a small pool turning lines into validated Students
+ *   writer  - adds each batch to the DAO, in file order
+ *
+ * The stages are joined by bounded queues, and a semaphore caps the number
+ * of batches anywhere in the pipeline, so heap use stays flat however large
+ * the file is: a slow DAO makes the parsers wait, which makes the reader
+ * wait. Rows that cannot be parsed or validated, and students the DAO
+ * refuses, are counted as rejects; the first few are kept with their line
+ * numbers for reporting.
+ *
+ * Rows use the column order of the students table in students.sql:
+ * StudentID,FirstName,LastName,DateOfBirth,Email,Course,YearOfStudy,GPA
+ * A first line starting with "StudentID" or "student_id" is taken as a
+ * header and skipped.
+ *
+ * An importer runs one import at a time; its counters are cumulative.
+ */
+public class StudentCsvImporter {
+    
+    private static final int FIELD_COUNT = 8;
+    private static final int MAX_REJECTS_KEPT = 100;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    
+    private final StudentDAO studentDAO;
+    private final int parserThreads;
+    private final int batchSize;
+    private final int queueCapacity;
+    
+    // Live counters, readable from other threads while an import runs
+    private final LongAdder linesRead = new LongAdder();
+    private final LongAdder studentsImported = new LongAdder();
+    private final LongAdder rowsRejected = new LongAdder();
+    private final List<String> rejectSamples = Collections.synchronizedList(new ArrayList<>());
+    
+    public StudentCsvImporter(StudentDAO studentDAO) {
+        this(studentDAO, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 1_000, 16);
+    }
+    
+    /**
+     * Create an importer with explicit pipeline sizes
+     * @param studentDAO the DAO to import into
+     * @param parserThreads the number of parser threads
+     * @param batchSize the number of lines passed between stages at a time
+     * @param queueCapacity the number of batches each queue can hold
+     */
+    public StudentCsvImporter(StudentDAO studentDAO, int parserThreads, int batchSize, int queueCapacity) {
+        if (parserThreads < 1 || batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Pipeline sizes must be positive");
+        }
+        this.studentDAO = studentDAO;
+        this.parserThreads = parserThreads;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+    
+    /**
+     * Import every row of a CSV file into the DAO
+     * @param filePath the file to import
+     * @return counts for this import
+     * @throws IOException if the file cannot be read
+     * @throws RuntimeException whatever the DAO threw while adding a batch; the
+     *         batches before it stay imported and the rest of the input is skipped
+     */
+    public ImportResult importFile(String filePath) throws IOException {
+        // Same encoding FileReader uses
+        try (Reader reader = new InputStreamReader(new FileInputStream(filePath), Charset.defaultCharset())) {
+            return importFrom(reader);
+        }
+    }
+    
+    /**
+     * Import every row from a reader into the DAO. The reader is consumed on
+     * the calling thread; parsing and DAO writes happen on pipeline threads.
+     * @param source CSV text
+     * @return counts for this import
+     * @throws IOException if the source cannot be read
+     * @throws RuntimeException whatever the DAO threw while adding a batch; the
+     *         batches before it stay imported and the rest of the input is skipped
+     */
+    public ImportResult importFrom(Reader source) throws IOException {
+        rejectSamples.clear();
+        long startLines = linesRead.sum();
+        long startImported = studentsImported.sum();
+        long startRejected = rowsRejected.sum();
+        long start = System.nanoTime();
+        
+        BlockingQueue<Batch> lineQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Batch> studentQueue = new ArrayBlockingQueue<>(queueCapacity);
+        // Every batch holds a permit from the moment it is read until it is written
+        Semaphore batchesInFlight = new Semaphore(2 * queueCapacity + parserThreads + 1);
+        // Set by the writer if the DAO throws; the reader stops early and the failure is rethrown
+        AtomicReference<RuntimeException> writeFailure = new AtomicReference<>();
+        
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < parserThreads; i++) {
+            threads.add(new Thread(() -> runParser(lineQueue, studentQueue), "csv-parser-" + i));
+        }
+        threads.add(new Thread(() -> runWriter(studentQueue, batchesInFlight, writeFailure), "csv-writer"));
+        threads.forEach(Thread::start);
+        
+        IOException readFailure = null;
+        try {
+            readLines(source, lineQueue, batchesInFlight, writeFailure);
+        } catch (IOException e) {
+            readFailure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            readFailure = new IOException("Interrupted while importing", e);
+        } finally {
+            // One end marker per parser; the writer stops after seeing them all
+            for (int i = 0; i < parserThreads; i++) {
+                putUninterruptibly(lineQueue, Batch.END);
+            }
+            for (Thread thread : threads) {
+                joinUninterruptibly(thread);
+            }
+        }
+        if (writeFailure.get() != null) {
+            throw writeFailure.get();
+        }
+        if (readFailure != null) {
+            throw readFailure;
+        }
+        
+        return new ImportResult(linesRead.sum() - startLines, studentsImported.sum() - startImported,
+                rowsRejected.sum() - startRejected, System.nanoTime() - start, new ArrayList<>(rejectSamples));
+    }
+    
+    public long getLinesRead() {
+        return linesRead.sum();
+    }
+    
+    public long getStudentsImported() {
+        return studentsImported.sum();
+    }
+    
+    public long getRowsRejected() {
+        return rowsRejected.sum();
+    }
+    
+    // Stage 1: reader
+    
+    private void readLines(Reader source, BlockingQueue<Batch> lineQueue, Semaphore batchesInFlight,
+                           AtomicReference<RuntimeException> writeFailure) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(source, READ_BUFFER_SIZE);
+        long lineNumber = 0;
+        long sequence = 0;
+        List<String> lines = new ArrayList<>(batchSize);
+        long firstLine = 1;
+        
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (writeFailure.get() != null) {
+                // Nothing more will be written, so stop reading
+                return;
+            }
+            lineNumber++;
+            linesRead.increment();
+            if (lineNumber == 1 && isHeader(line)) {
+                firstLine = 2;
+                continue;
+            }
+            lines.add(line);
+            if (lines.size() == batchSize) {
+                batchesInFlight.acquire();
+                lineQueue.put(new Batch(sequence++, firstLine, lines, null));
+                lines = new ArrayList<>(batchSize);
+                firstLine = lineNumber + 1;
+            }
+        }
+        if (!lines.isEmpty()) {
+            batchesInFlight.acquire();
+            lineQueue.put(new Batch(sequence, firstLine, lines, null));
+        }
+    }
+    
+    private static boolean isHeader(String line) {
+        String lower = line.trim().toLowerCase();
+        return lower.startsWith("studentid") || lower.startsWith("student_id");
+    }
+    
+    // Stage 2: parsers
+    
+    private void runParser(BlockingQueue<Batch> lineQueue, BlockingQueue<Batch> studentQueue) {
+        try {
+            while (true) {
+                Batch batch = lineQueue.take();
+                if (batch == Batch.END) {
+                    studentQueue.put(Batch.END);
+                    return;
+                }
+                
+                List<Student> students = new ArrayList<>(batch.lines.size());
+                for (int i = 0; i < batch.lines.size(); i++) {
+                    String line = batch.lines.get(i);
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        students.add(parseStudent(line));
+                    } catch (RuntimeException e) {
+                        reject(batch.firstLine + i, e.getMessage());
+                    }
+                }
+                studentQueue.put(new Batch(batch.sequence, batch.firstLine, null, students));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Parse and validate one row
+     * @throws IllegalArgumentException if the row is not a valid student
+     */
+    static Student parseStudent(String line) {
+        String[] fields = new String[FIELD_COUNT];
+        int field = 0;
+        int start = 0;
+        for (int i = 0; i <= line.length(); i++) {
+            if (i == line.length() || line.charAt(i) == ',') {
+                if (field == FIELD_COUNT) {
+                    throw new IllegalArgumentException("Expected " + FIELD_COUNT + " fields but found more");
+                }
+                fields[field++] = line.substring(start, i).trim();
+                start = i + 1;
+            }
+        }
+        if (field != FIELD_COUNT) {
+            throw new IllegalArgumentException("Expected " + FIELD_COUNT + " fields but found " + field);
+        }
+        if (fields[0].isEmpty()) {
+            throw new IllegalArgumentException("Missing student ID");
+        }
+        
+        int yearOfStudy;
+        double gpa;
+        try {
+            yearOfStudy = Integer.parseInt(fields[6]);
+            gpa = Double.parseDouble(fields[7]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+        
+        // The Student constructor validates year of study and GPA
+        return new Student(fields[1], fields[2], parseDate(fields[3]), fields[4], fields[0],
+                fields[5], yearOfStudy, gpa);
+    }
+    
+    private static LocalDate parseDate(String text) {
+        try {
+            if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+                return LocalDate.of(Integer.parseInt(text, 0, 4, 10), Integer.parseInt(text, 5, 7, 10),
+                        Integer.parseInt(text, 8, 10, 10));
+            }
+            return LocalDate.parse(text);
+        } catch (DateTimeException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid date of birth: " + text);
+        }
+    }
+    
+    // Stage 3: writer
+    
+    /**
+     * Write batches in sequence order. If the DAO throws, the failure is
+     * recorded and the writer keeps taking batches and releasing their
+     * permits without writing them, so the reader and parsers can finish.
+     */
+    private void runWriter(BlockingQueue<Batch> studentQueue, Semaphore batchesInFlight,
+                           AtomicReference<RuntimeException> writeFailure) {
+        // Batches finish parsing out of order; hold early ones until their turn
+        Map<Long, Batch> waiting = new HashMap<>();
+        long nextSequence = 0;
+        int endMarkers = 0;
+        
+        try {
+            while (endMarkers < parserThreads) {
+                Batch batch = studentQueue.take();
+                if (batch == Batch.END) {
+                    endMarkers++;
+                    continue;
+                }
+                if (writeFailure.get() != null) {
+                    batchesInFlight.release();
+                    continue;
+                }
+                waiting.put(batch.sequence, batch);
+                
+                Batch next;
+                while ((next = waiting.remove(nextSequence)) != null) {
+                    try {
+                        write(next);
+                    } catch (RuntimeException e) {
+                        writeFailure.set(e);
+                        // Give back the permits of this batch and of those held for later
+                        batchesInFlight.release(1 + waiting.size());
+                        waiting.clear();
+                        break;
+                    }
+                    nextSequence++;
+                    batchesInFlight.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void write(Batch batch) {
+        boolean[] added = studentDAO.addAll(batch.students);
+        for (int i = 0; i < added.length; i++) {
+            if (added[i]) {
+                studentsImported.increment();
+            } else {
+                reject(-1, "Student " + batch.students.get(i).getStudentId() + " was not added (duplicate ID?)");
+            }
+        }
+    }
+    
+    private void reject(long lineNumber, String message) {
+        rowsRejected.increment();
+        if (rejectSamples.size() < MAX_REJECTS_KEPT) {
+            rejectSamples.add(lineNumber > 0 ? "Line " + lineNumber + ": " + message : message);
+        }
+    }
+    
+    // Helpers
+    
+    private static void putUninterruptibly(BlockingQueue<Batch> queue, Batch batch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(batch);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * A numbered group of consecutive rows, first as lines and then as students
+     */
+    private static final class Batch {
+        
+        static final Batch END = new Batch(-1, -1, null, null);
+        
+        private final long sequence;
+        private final long firstLine;
+        private final List<String> lines;
+        private final List<Student> students;
+        
+        private Batch(long sequence, long firstLine, List<String> lines, List<Student> students) {
+            this.sequence = sequence;
+            this.firstLine = firstLine;
+            this.lines = lines;
+            this.students = students;
+        }
+    }
+    
+    /**
+     * Counts for one completed import
+     */
+    public static class ImportResult {
+        
+        private final long linesRead;
+        private final long studentsImported;
+        private final long rowsRejected;
+        private final long elapsedNanos;
+        private final List<String> rejectSamples;
+        
+        ImportResult(long linesRead, long studentsImported, long rowsRejected, long elapsedNanos,
+                     List<String> rejectSamples) {
+            this.linesRead = linesRead;
+            this.studentsImported = studentsImported;
+            this.rowsRejected = rowsRejected;
+            this.elapsedNanos = elapsedNanos;
+            this.rejectSamples = Collections.unmodifiableList(rejectSamples);
+        }
+        
+        public long getLinesRead() {
+            return linesRead;
+        }
+        
+        public long getStudentsImported() {
+            return studentsImported;
+        }
+        
+        public long getRowsRejected() {
+            return rowsRejected;
+        }
+        
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        
+        /**
+         * @return imported students per second
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : studentsImported * 1e9 / elapsedNanos;
+        }
+        
+        /**
+         * @return the first rejects, with line numbers where the row itself was bad
+         */
+        public List<String> getRejectSamples() {
+            return rejectSamples;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Imported %d of %d lines in %.2fs (%.0f students/sec), %d rejected",
+                    studentsImported, linesRead, elapsedNanos / 1e9, getThroughput(), rowsRejected);
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.dkit.oop.utils;
+
+import com.dkit.oop.models.Student;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+
+/**
+ * Pull parser for JSON arrays of students, as written by JsonUtils
+ * Demonstrates a hand-written tokenizer that builds objects without a DOM
+ *
+ * Characters are read through one fixed-size buffer and each student is
+ * built as soon as its closing brace is reached, so memory use stays
+ * constant however large the input is. Fields may appear in any order and
+ * unknown fields are skipped. Numbers and dates in the format studentToJson
+ * writes are decoded straight from the buffer, without intermediate
+ * Strings.
+ *
+ * Malformed input is reported with an IllegalArgumentException giving the
+ * character offset of the problem.
+ */
+public class StudentJsonReader implements Closeable {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    // Powers of ten that are exact doubles, for the fast decimal path
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    private final Reader in;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    
+    // Characters consumed before the current buffer, for error messages
+    private long offset;
+    
+    // Scratch space for strings and numbers that span buffer refills
+    private final StringBuilder scratch;
+    
+    // 0 before the opening bracket, 1 inside the array, 2 after the end
+    private int state;
+    
+    /**
+     * @param in the JSON source; read in large blocks, so it need not be buffered
+     */
+    public StudentJsonReader(Reader in) {
+        this.in = in;
+        this.buffer = new char[BUFFER_SIZE];
+        this.position = 0;
+        this.limit = 0;
+        this.offset = 0;
+        this.scratch = new StringBuilder(64);
+        this.state = 0;
+    }
+    
+    /**
+     * Read the next student in the array
+     * Null elements, which studentsToJson writes for null students, are skipped.
+     * @return the next student, or null once the array (or a top-level null) is finished
+     * @throws IOException if the underlying reader fails
+     */
+    public Student readStudent() throws IOException {
+        while (true) {
+            if (state == 2) {
+                return null;
+            }
+            
+            int c = peekNonWhitespace();
+            if (state == 0) {
+                if (c == 'n') {
+                    expectLiteral("null");
+                    finish();
+                    return null;
+                }
+                expect('[');
+                state = 1;
+                if (peekNonWhitespace() == ']') {
+                    position++;
+                    finish();
+                    return null;
+                }
+            } else {
+                if (c == ']') {
+                    position++;
+                    finish();
+                    return null;
+                }
+                expect(',');
+            }
+            
+            c = peekNonWhitespace();
+            if (c == 'n') {
+                expectLiteral("null");
+                continue;
+            }
+            return readObject();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+    
+    /**
+     * After the array, only whitespace may follow
+     */
+    private void finish() throws IOException {
+        state = 2;
+        if (peekNonWhitespace() != -1) {
+            throw error("Unexpected content after the student array");
+        }
+    }
+    
+    private Student readObject() throws IOException {
+        expect('{');
+        
+        String studentId = "";
+        String firstName = "";
+        String lastName = "";
+        LocalDate dateOfBirth = null;
+        String email = "";
+        String course = "";
+        int yearOfStudy = Student.MIN_YEAR;
+        double gpa = Student.MIN_GPA;
+        
+        if (peekNonWhitespace() == '}') {
+            position++;
+        } else {
+            while (true) {
+                String field = readString();
+                expectAfterWhitespace(':');
+                switch (field) {
+                    case "studentId": studentId = readString(); break;
+                    case "firstName": firstName = readString(); break;
+                    case "lastName": lastName = readString(); break;
+                    case "dateOfBirth": dateOfBirth = readDate(); break;
+                    case "email": email = readString(); break;
+                    case "course": course = readString(); break;
+                    case "yearOfStudy": yearOfStudy = readInt(); break;
+                    case "gpa": gpa = readDouble(); break;
+                    default: skipValue();
+                }
+                
+                int c = peekNonWhitespace();
+                position++;
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    position--;
+                    throw error("Expected ',' or '}' in student object");
+                }
+            }
+        }
+        
+        if (dateOfBirth == null) {
+            throw error("Student " + studentId + " has no dateOfBirth");
+        }
+        return new Student(firstName, lastName, dateOfBirth, email, studentId, course, yearOfStudy, gpa);
+    }
+    
+    // Values
+    
+    private String readString() throws IOException {
+        expectAfterWhitespace('"');
+        
+        // Fast path: the whole string is in the buffer and has no escapes
+        for (int i = position; i < limit; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                String value = new String(buffer, position, i - position);
+                position = i + 1;
+                return value;
+            }
+            if (c == '\\') {
+                break;
+            }
+        }
+        
+        scratch.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) {
+                throw error("Unterminated string");
+            }
+            char c = buffer[position++];
+            if (c == '"') {
+                return scratch.toString();
+            }
+            if (c == '\\') {
+                scratch.append(readEscape());
+            } else {
+                scratch.append(c);
+            }
+        }
+    }
+    
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    code = code * 16 + digit;
+                }
+                return (char) code;
+            default:
+                throw error("Invalid escape character");
+        }
+    }
+    
+    /**
+     * Read a yyyy-MM-dd date string, decoding the digits directly
+     */
+    private LocalDate readDate() throws IOException {
+        peekNonWhitespace();
+        ensureAvailable(12);
+        if (limit - position >= 12 && buffer[position] == '"' && buffer[position + 11] == '"'
+                && buffer[position + 5] == '-' && buffer[position + 8] == '-') {
+            int year = digits(position + 1, 4);
+            int month = digits(position + 6, 2);
+            int day = digits(position + 9, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                position += 12;
+                try {
+                    return LocalDate.of(year, month, day);
+                } catch (java.time.DateTimeException e) {
+                    throw error("Invalid dateOfBirth: " + e.getMessage());
+                }
+            }
+        }
+        
+        // Anything unusual, such as a five-digit year, goes through the full parser
+        String text = readString();
+        try {
+            return LocalDate.parse(text);
+        } catch (java.time.format.DateTimeParseException e) {
+            throw error("Invalid dateOfBirth: " + text);
+        }
+    }
+    
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+    
+    private int readInt() throws IOException {
+        readNumber();
+        try {
+            return Integer.parseInt(scratch, 0, scratch.length(), 10);
+        } catch (NumberFormatException e) {
+            throw error("Invalid integer: " + scratch);
+        }
+    }
+    
+    /**
+     * Read a double. Plain decimals with few enough digits are converted
+     * exactly as mantissa / 10^scale, which is correctly rounded because
+     * both operands are exact doubles; everything else goes to parseDouble.
+     */
+    private double readDouble() throws IOException {
+        readNumber();
+        
+        long mantissa = 0;
+        int scale = -1;
+        int digitCount = 0;
+        int start = scratch.length() > 0 && scratch.charAt(0) == '-' ? 1 : 0;
+        boolean simple = scratch.length() > start;
+        for (int i = start; i < scratch.length() && simple; i++) {
+            char c = scratch.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digitCount++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                simple = false;
+            }
+        }
+        
+        if (simple && digitCount <= 15 && scale < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[Math.max(scale, 0)];
+            return start == 1 ? -value : value;
+        }
+        try {
+            return Double.parseDouble(scratch.toString());
+        } catch (NumberFormatException e) {
+            throw error("Invalid number: " + scratch);
+        }
+    }
+    
+    /**
+     * Copy the characters of a number into the scratch buffer
+     */
+    private void readNumber() throws IOException {
+        peekNonWhitespace();
+        scratch.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) {
+                break;
+            }
+            char c = buffer[position];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                scratch.append(c);
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (scratch.length() == 0) {
+            throw error("Expected a number");
+        }
+    }
+    
+    /**
+     * Skip a value of a field this reader does not know about
+     */
+    private void skipValue() throws IOException {
+        int c = peekNonWhitespace();
+        switch (c) {
+            case '"':
+                readString();
+                break;
+            case '{':
+            case '[':
+                skipNested();
+                break;
+            case 't':
+                expectLiteral("true");
+                break;
+            case 'f':
+                expectLiteral("false");
+                break;
+            case 'n':
+                expectLiteral("null");
+                break;
+            default:
+                readNumber();
+        }
+    }
+    
+    private void skipNested() throws IOException {
+        int depth = 0;
+        do {
+            int c = peekNonWhitespace();
+            if (c == '"') {
+                readString();
+                continue;
+            }
+            position++;
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            } else if (c == -1) {
+                throw error("Unterminated object or array");
+            }
+        } while (depth > 0);
+    }
+    
+    // Buffer handling
+    
+    /**
+     * Skip whitespace and return the next character without consuming it
+     * @return the character, or -1 at end of input
+     */
+    private int peekNonWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            position++;
+        }
+    }
+    
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            throw error("Unexpected end of input");
+        }
+        return buffer[position++];
+    }
+    
+    private void expect(char expected) throws IOException {
+        if (read() != expected) {
+            position--;
+            throw error("Expected '" + expected + "'");
+        }
+    }
+    
+    private void expectAfterWhitespace(char expected) throws IOException {
+        peekNonWhitespace();
+        expect(expected);
+    }
+    
+    private void expectLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("Expected " + literal);
+            }
+        }
+    }
+    
+    /**
+     * Make sure at least count characters are buffered, if the input has them
+     */
+    private void ensureAvailable(int count) throws IOException {
+        while (limit - position < count) {
+            if (!fill()) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Read more input, keeping any unconsumed characters
+     * @return false at end of input
+     */
+    private boolean fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining == buffer.length) {
+            return true;
+        }
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        offset += position;
+        position = 0;
+        limit = remaining;
+        
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read <= 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+    
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at character " + (offset + position));
+    }
+}
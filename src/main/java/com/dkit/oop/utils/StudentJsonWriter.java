@@ -0,0 +1,104 @@
+package com.dkit.oop.utils;
+
+import com.dkit.oop.models.Student;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+
+/**
+ * Streams a list of students as a JSON array into byte buffers
+ * Demonstrates incremental encoding with java.nio charsets
+ *
+ * The caller supplies the ByteBuffer, e.g. a direct buffer drained to a
+ * FileChannel or SocketChannel, and calls writeTo until it returns true.
+ * A few kilobytes of students at a time are rendered into one reusable
+ * scratch buffer and encoded from there, so memory use does not depend on
+ * how many students are written. The bytes are identical to encoding
+ * JsonUtils.studentsToJson with the same charset.
+ */
+public class StudentJsonWriter {
+    
+    private static final int SCRATCH_SIZE = 8 * 1024;
+    
+    private final List<Student> students;
+    private final CharsetEncoder encoder;
+    private final StringBuilder scratch;
+    private char[] chars;
+    private CharBuffer pending;
+    
+    // Index of the next student to render; -1 until the opening bracket is written
+    private int nextIndex;
+    private boolean rendered;
+    
+    StudentJsonWriter(List<Student> students, Charset charset) {
+        this.students = students;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.scratch = new StringBuilder(SCRATCH_SIZE + 256);
+        this.chars = new char[SCRATCH_SIZE + 256];
+        this.pending = CharBuffer.allocate(0);
+        this.nextIndex = -1;
+        this.rendered = false;
+    }
+    
+    /**
+     * Encode as much of the JSON as fits in the target buffer
+     * @param target buffer to fill, in write mode
+     * @return true once the whole array has been written, false if the
+     *         buffer filled up and writeTo must be called again after draining it
+     */
+    public boolean writeTo(ByteBuffer target) {
+        while (true) {
+            boolean endOfInput = rendered;
+            CoderResult result = encoder.encode(pending, target, endOfInput);
+            if (result.isOverflow()) {
+                return false;
+            }
+            if (endOfInput) {
+                return !encoder.flush(target).isOverflow();
+            }
+            renderNext();
+        }
+    }
+    
+    /**
+     * Render the next few kilobytes of JSON into the pending characters.
+     * Anything the encoder left behind, such as half a surrogate pair, is
+     * carried over in front of the new text.
+     */
+    private void renderNext() {
+        scratch.setLength(0);
+        scratch.append(pending);
+        
+        if (students == null) {
+            scratch.append("null");
+            rendered = true;
+        } else {
+            if (nextIndex < 0) {
+                scratch.append('[');
+                nextIndex = 0;
+            }
+            while (nextIndex < students.size() && scratch.length() < SCRATCH_SIZE) {
+                if (nextIndex > 0) {
+                    scratch.append(',');
+                }
+                JsonUtils.appendStudent(scratch, students.get(nextIndex++));
+            }
+            if (nextIndex == students.size()) {
+                scratch.append(']');
+                rendered = true;
+            }
+        }
+        
+        if (chars.length < scratch.length()) {
+            chars = new char[scratch.length()];
+        }
+        scratch.getChars(0, scratch.length(), chars, 0);
+        pending = CharBuffer.wrap(chars, 0, scratch.length());
+    }
+}
@@ -0,0 +1,414 @@
+package com.dkit.oop.utils;
+
+import com.dkit.oop.models.Student;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Precomputed sort keys for StudentComparator.sort
+ * Demonstrates trading a little memory for much cheaper comparisons
+ *
+ * A comparator is described as a list of key parts, most significant
+ * first. Sorting works out every part once per student rather than once
+ * per comparison, as a column of non-negative longs in the same order:
+ * - text parts are case-folded once per distinct value, so they compare
+ *   with String.compareTo exactly as compareToIgnoreCase would, and then
+ *   replaced by their rank among the distinct values
+ * - small numbers such as a year, a status or a GPA in hundredths are
+ *   used as they are; other numbers are ranked like text
+ *
+ * If the columns fit together in 63 bits they are packed into one long
+ * per student and sorted with an LSD radix sort; otherwise the students
+ * are merge sorted by index on the columns. Both sorts are stable, so the
+ * result is always exactly what List.sort with the original comparator
+ * gives.
+ */
+final class StudentSortKeys {
+    
+    private static final int RADIX_BITS = 8;
+    private static final int PACKED_BITS_LIMIT = 63;
+    
+    private StudentSortKeys() {
+    }
+    
+    /**
+     * One component of a sort key
+     */
+    abstract static class Part {
+    }
+    
+    /**
+     * A text component, optionally compared ignoring case
+     */
+    static final class TextPart extends Part {
+        
+        private final Function<Student, String> text;
+        private final boolean ignoreCase;
+        
+        TextPart(Function<Student, String> text, boolean ignoreCase) {
+            this.text = text;
+            this.ignoreCase = ignoreCase;
+        }
+    }
+    
+    /**
+     * A numeric component. Every value maps to a long that orders the same
+     * way; values that fit in a few bits can also be packed.
+     */
+    static final class NumberPart extends Part {
+        
+        private final ToLongFunction<Student> key;
+        private final ToLongFunction<Student> packed;
+        private final int packedBits;
+        
+        /**
+         * @param key orders students as the comparison does
+         * @param packed the same order in packedBits bits, or -1 for a value that does not fit
+         * @param packedBits width of the packed form
+         */
+        NumberPart(ToLongFunction<Student> key, ToLongFunction<Student> packed, int packedBits) {
+            this.key = key;
+            this.packed = packed;
+            this.packedBits = packedBits;
+        }
+    }
+    
+    // Parts used by StudentComparator
+    
+    static Part gpa(boolean descending) {
+        return new NumberPart(
+            student -> {
+                long key = sortableDouble(student.getGpa());
+                return descending ? ~key : key;
+            },
+            student -> {
+                long hundredths = gpaHundredths(student.getGpa());
+                return hundredths < 0 || !descending ? hundredths : 400 - hundredths;
+            },
+            9);
+    }
+    
+    static Part year(boolean descending) {
+        return smallInt(Student::getYearOfStudy, descending, 3);
+    }
+    
+    static Part age(boolean descending) {
+        return smallInt(Student::getAge, descending, 8);
+    }
+    
+    /**
+     * Academic status in the order Honors, Good Standing, Academic Warning
+     * The priority comes from the same lookup BY_ACADEMIC_STATUS uses, so the
+     * two cannot drift apart if Student.getAcademicStatus changes.
+     */
+    static Part academicStatus() {
+        return smallInt(student -> StudentComparator.getStatusPriority(student.getAcademicStatus()), false, 3);
+    }
+    
+    static Part text(Function<Student, String> text, boolean ignoreCase) {
+        return new TextPart(text, ignoreCase);
+    }
+    
+    private static Part smallInt(ToIntFunction<Student> value, boolean descending, int bits) {
+        long max = (1L << bits) - 1;
+        return new NumberPart(
+            student -> descending ? -(long) value.applyAsInt(student) : value.applyAsInt(student),
+            student -> {
+                int v = value.applyAsInt(student);
+                if (v < 0 || v > max) {
+                    return -1;
+                }
+                return descending ? max - v : v;
+            },
+            bits);
+    }
+    
+    // Sorting
+    
+    /**
+     * Sort students by the given key parts
+     * @param students the list to sort in place
+     * @param parts the key, most significant part first
+     * @return false, leaving the list untouched, if the keys cannot reproduce the comparator exactly
+     */
+    static boolean sort(List<Student> students, Part[] parts) {
+        Student[] snapshot = students.toArray(new Student[0]);
+        int count = snapshot.length;
+        if (count < 2) {
+            return true;
+        }
+        
+        // One column of order-preserving numbers per part
+        long[][] columns = new long[parts.length][];
+        int[] bits = new int[parts.length];
+        int totalBits = 0;
+        for (int p = 0; p < parts.length; p++) {
+            columns[p] = parts[p] instanceof TextPart
+                    ? textColumn((TextPart) parts[p], snapshot)
+                    : numberColumn((NumberPart) parts[p], snapshot);
+            if (columns[p] == null) {
+                return false;
+            }
+            bits[p] = bitsFor(columns[p]);
+            totalBits += bits[p];
+        }
+        
+        int[] order = totalBits <= PACKED_BITS_LIMIT
+                ? radixSort(pack(columns, bits, count), totalBits)
+                : mergeSort(columns, count);
+        
+        ListIterator<Student> iterator = students.listIterator();
+        for (int index : order) {
+            iterator.next();
+            iterator.set(snapshot[index]);
+        }
+        return true;
+    }
+    
+    /**
+     * Rank each student's text among the distinct values, so the text
+     * compares as a small number
+     * @return the ranks, or null if a case-folded value has surrogate pairs
+     */
+    private static long[] textColumn(TextPart part, Student[] students) {
+        // Identical strings are folded once
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        int[] idOf = new int[students.length];
+        for (int i = 0; i < students.length; i++) {
+            String value = part.text.apply(students[i]);
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = distinct.size();
+                ids.put(value, id);
+                distinct.add(value);
+            }
+            idOf[i] = id;
+        }
+        
+        String[] keys = new String[distinct.size()];
+        for (int id = 0; id < keys.length; id++) {
+            String value = distinct.get(id);
+            keys[id] = part.ignoreCase ? foldCase(value) : value;
+            if (keys[id] == null) {
+                return null;
+            }
+        }
+        
+        // Equal keys share a rank, so case variants tie as they do in compareToIgnoreCase
+        Integer[] byKey = new Integer[keys.length];
+        for (int id = 0; id < keys.length; id++) {
+            byKey[id] = id;
+        }
+        Arrays.sort(byKey, (a, b) -> keys[a].compareTo(keys[b]));
+        long[] rankOf = new long[keys.length];
+        long rank = 0;
+        for (int i = 0; i < byKey.length; i++) {
+            if (i > 0 && !keys[byKey[i]].equals(keys[byKey[i - 1]])) {
+                rank++;
+            }
+            rankOf[byKey[i]] = rank;
+        }
+        
+        long[] column = new long[students.length];
+        for (int i = 0; i < students.length; i++) {
+            column[i] = rankOf[idOf[i]];
+        }
+        return column;
+    }
+    
+    /**
+     * Each student's number, packed if every value fits, otherwise ranked
+     * among the distinct values
+     */
+    private static long[] numberColumn(NumberPart part, Student[] students) {
+        long[] column = new long[students.length];
+        boolean packable = true;
+        for (int i = 0; i < students.length && packable; i++) {
+            column[i] = part.packed.applyAsLong(students[i]);
+            packable = column[i] >= 0;
+        }
+        if (packable) {
+            return column;
+        }
+        
+        for (int i = 0; i < students.length; i++) {
+            column[i] = part.key.applyAsLong(students[i]);
+        }
+        long[] distinct = column.clone();
+        Arrays.sort(distinct);
+        int distinctCount = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i == 0 || distinct[i] != distinct[i - 1]) {
+                distinct[distinctCount++] = distinct[i];
+            }
+        }
+        for (int i = 0; i < column.length; i++) {
+            column[i] = Arrays.binarySearch(distinct, 0, distinctCount, column[i]);
+        }
+        return column;
+    }
+    
+    /**
+     * Bits needed for the largest value in a column of non-negative numbers
+     */
+    private static int bitsFor(long[] column) {
+        long max = 0;
+        for (long value : column) {
+            max = Math.max(max, value);
+        }
+        return 64 - Long.numberOfLeadingZeros(max);
+    }
+    
+    private static long[] pack(long[][] columns, int[] bits, int count) {
+        long[] keys = new long[count];
+        for (int p = 0; p < columns.length; p++) {
+            long[] column = columns[p];
+            for (int i = 0; i < count; i++) {
+                keys[i] = (keys[i] << bits[p]) | column[i];
+            }
+        }
+        return keys;
+    }
+    
+    /**
+     * Stable LSD radix sort of packed keys
+     * @return the indices of the keys in sorted order
+     */
+    private static int[] radixSort(long[] keys, int totalBits) {
+        int count = keys.length;
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        
+        long[] keyBuffer = new long[count];
+        int[] orderBuffer = new int[count];
+        int[] counts = new int[1 << RADIX_BITS];
+        int mask = (1 << RADIX_BITS) - 1;
+        for (int shift = 0; shift < totalBits; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (long key : keys) {
+                counts[(int) (key >>> shift) & mask]++;
+            }
+            if (counts[(int) (keys[0] >>> shift) & mask] == count) {
+                continue; // every key has the same digit here
+            }
+            
+            int position = 0;
+            for (int digit = 0; digit < counts.length; digit++) {
+                int digitCount = counts[digit];
+                counts[digit] = position;
+                position += digitCount;
+            }
+            for (int i = 0; i < count; i++) {
+                int target = counts[(int) (keys[i] >>> shift) & mask]++;
+                keyBuffer[target] = keys[i];
+                orderBuffer[target] = order[i];
+            }
+            
+            long[] swapKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swapKeys;
+            int[] swapOrder = order;
+            order = orderBuffer;
+            orderBuffer = swapOrder;
+        }
+        return order;
+    }
+    
+    /**
+     * Stable merge sort of indices, for keys too wide to pack into one long
+     * @return the indices in sorted order
+     */
+    private static int[] mergeSort(long[][] columns, int count) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int start = 0; start < count; start += 2 * width) {
+                int middle = Math.min(start + width, count);
+                int end = Math.min(start + 2 * width, count);
+                int left = start;
+                int right = middle;
+                int out = start;
+                while (left < middle && right < end) {
+                    // Take from the right only when strictly smaller, which keeps the sort stable
+                    buffer[out++] = compare(columns, order[right], order[left]) < 0
+                            ? order[right++] : order[left++];
+                }
+                while (left < middle) {
+                    buffer[out++] = order[left++];
+                }
+                while (right < end) {
+                    buffer[out++] = order[right++];
+                }
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+    
+    private static int compare(long[][] columns, int a, int b) {
+        for (long[] column : columns) {
+            int result = Long.compare(column[a], column[b]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+    
+    // Key helpers
+    
+    /**
+     * Fold case the way compareToIgnoreCase does, character by character
+     * @return the folded text, or null if it has surrogate pairs, which
+     *         compareToIgnoreCase orders by code point rather than by char
+     */
+    static String foldCase(String text) {
+        char[] chars = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isSurrogate(c)) {
+                return null;
+            }
+            char folded = Character.toLowerCase(Character.toUpperCase(c));
+            if (folded != c) {
+                if (chars == null) {
+                    chars = text.toCharArray();
+                }
+                chars[i] = folded;
+            }
+        }
+        return chars == null ? text : new String(chars);
+    }
+    
+    /**
+     * Map a double to a long with the same ordering as Double.compare
+     */
+    static long sortableDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+    
+    /**
+     * @return the GPA in hundredths if it is exactly a two-decimal value from 0.00 to 4.00, otherwise -1
+     */
+    private static long gpaHundredths(double gpa) {
+        long hundredths = Math.round(gpa * 100);
+        // Double.compare rather than ==, so -0.0 is not mistaken for 0.00
+        return hundredths >= 0 && hundredths <= 400 && Double.compare(hundredths / 100.0, gpa) == 0 ? hundredths : -1;
+    }
+}
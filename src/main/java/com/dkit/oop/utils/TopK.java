@@ -0,0 +1,203 @@
+package com.dkit.oop.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Top-K selection with bounded heaps
+ * Demonstrates heaps and parallel reduction as an alternative to sorting everything
+ *
+ * Only the best k items seen so far are kept, in a heap with the worst of
+ * them on top, so each further item costs at most O(log k) and nothing is
+ * ever copied or sorted beyond those k. Ties are broken by position in
+ * the source list, which makes the result identical to a stable sort
+ * followed by taking the first k.
+ */
+public final class TopK {
+    
+    // Lists shorter than this are not worth splitting across threads
+    private static final int MIN_CHUNK_SIZE = 8192;
+    
+    private TopK() {
+    }
+    
+    /**
+     * Select the first k items in comparator order
+     * @param items the items to choose from
+     * @param comparator the order, best first
+     * @param k the maximum number of items to return
+     * @param filter only items it accepts are considered; null accepts everything
+     * @return the same items as sorting the accepted items and keeping the first k
+     */
+    public static <T> List<T> select(List<T> items, Comparator<? super T> comparator, int k, Predicate<? super T> filter) {
+        checkK(k);
+        Heap<T> heap = new Heap<>(comparator, k);
+        int index = 0;
+        for (T item : items) {
+            if (filter == null || filter.test(item)) {
+                heap.offer(item, index);
+            }
+            index++;
+        }
+        return heap.toSortedList();
+    }
+    
+    /**
+     * Select the first k items in comparator order, splitting the list
+     * across the common fork-join pool and merging the per-chunk heaps
+     * The comparator and filter must be safe to call from several threads.
+     * @param items the items to choose from; should support fast random access
+     * @param comparator the order, best first
+     * @param k the maximum number of items to return
+     * @param filter only items it accepts are considered; null accepts everything
+     * @return the same items as select
+     */
+    public static <T> List<T> parallelSelect(List<T> items, Comparator<? super T> comparator, int k,
+                                             Predicate<? super T> filter) {
+        checkK(k);
+        int size = items.size();
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, size / MIN_CHUNK_SIZE));
+        if (chunks == 1) {
+            return select(items, comparator, k, filter);
+        }
+        
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    Heap<T> heap = new Heap<>(comparator, k);
+                    int end = (int) ((long) size * (chunk + 1) / chunks);
+                    for (int index = (int) ((long) size * chunk / chunks); index < end; index++) {
+                        T item = items.get(index);
+                        if (filter == null || filter.test(item)) {
+                            heap.offer(item, index);
+                        }
+                    }
+                    return heap;
+                })
+                .reduce(Heap::merge)
+                .orElseGet(() -> new Heap<>(comparator, k))
+                .toSortedList();
+    }
+    
+    private static void checkK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+    }
+    
+    /**
+     * At most k items with their source positions, worst at the root
+     */
+    private static final class Heap<T> {
+        
+        private final Comparator<? super T> comparator;
+        private final int capacity;
+        private final List<T> items;
+        private int[] indices;
+        
+        Heap(Comparator<? super T> comparator, int capacity) {
+            this.comparator = comparator;
+            this.capacity = capacity;
+            this.items = new ArrayList<>(Math.min(capacity, 1024));
+            this.indices = new int[Math.min(capacity, 1024)];
+        }
+        
+        void offer(T item, int index) {
+            int size = items.size();
+            if (size < capacity) {
+                if (size == indices.length) {
+                    indices = Arrays.copyOf(indices, Math.min(capacity, size * 2));
+                }
+                items.add(item);
+                indices[size] = index;
+                siftUp(size);
+            } else if (capacity > 0 && worse(items.get(0), indices[0], item, index)) {
+                items.set(0, item);
+                indices[0] = index;
+                siftDown(0);
+            }
+        }
+        
+        /**
+         * Offer every item of another heap to this one
+         */
+        Heap<T> merge(Heap<T> other) {
+            for (int i = 0; i < other.items.size(); i++) {
+                offer(other.items.get(i), other.indices[i]);
+            }
+            return this;
+        }
+        
+        /**
+         * Empty the heap from the root; each removal is the worst remaining,
+         * so filling the result from the back leaves it best first
+         */
+        List<T> toSortedList() {
+            int size = items.size();
+            List<T> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(null);
+            }
+            for (int last = size - 1; last >= 0; last--) {
+                result.set(last, items.get(0));
+                items.set(0, items.get(last));
+                indices[0] = indices[last];
+                items.remove(last);
+                siftDown(0);
+            }
+            return result;
+        }
+        
+        /**
+         * True if (a, indexA) comes after (b, indexB) in the final order
+         */
+        private boolean worse(T a, int indexA, T b, int indexB) {
+            int result = comparator.compare(a, b);
+            return result != 0 ? result > 0 : indexA > indexB;
+        }
+        
+        private void siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (!worse(items.get(position), indices[position], items.get(parent), indices[parent])) {
+                    return;
+                }
+                swap(position, parent);
+                position = parent;
+            }
+        }
+        
+        private void siftDown(int position) {
+            int size = items.size();
+            while (true) {
+                int worst = position;
+                int left = 2 * position + 1;
+                int right = left + 1;
+                if (left < size && worse(items.get(left), indices[left], items.get(worst), indices[worst])) {
+                    worst = left;
+                }
+                if (right < size && worse(items.get(right), indices[right], items.get(worst), indices[worst])) {
+                    worst = right;
+                }
+                if (worst == position) {
+                    return;
+                }
+                swap(position, worst);
+                position = worst;
+            }
+        }
+        
+        private void swap(int a, int b) {
+            T item = items.get(a);
+            items.set(a, items.get(b));
+            items.set(b, item);
+            int index = indices[a];
+            indices[a] = indices[b];
+            indices[b] = index;
+        }
+    }
+}
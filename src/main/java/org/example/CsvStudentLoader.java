@@ -0,0 +1,334 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel loader for large student CSV files
+ * Demonstrates memory-mapped files and fork-join parallelism
+ *
+ * The file is memory-mapped and split at line boundaries into chunks that
+ * are parsed by hand, straight from the mapped bytes, on a ForkJoinPool.
+ * Chunk results are joined back in file order, so students come out in the
+ * same order as the rows. A malformed row is recorded with its line number
+ * and skipped instead of aborting the load, and nothing is logged while
+ * rows are being parsed.
+ *
+ * Rows have the same format FileLoader reads:
+ * StudentID,FirstName,LastName,Age,Email,Course,YearOfStudy,GPA
+ */
+public class CsvStudentLoader {
+    
+    private static final int FIELD_COUNT = 8;
+    private static final long MIN_CHUNK_SIZE = 1L << 20;   // 1 MB
+    private static final long MAX_CHUNK_SIZE = 64L << 20;  // 64 MB
+    private static final int SCAN_BLOCK_SIZE = 4096;
+    
+    // Powers of ten that are exact doubles, for the fast decimal path
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    // Same charset Scanner(File) uses
+    private static final Charset CHARSET = Charset.defaultCharset();
+    
+    /**
+     * Load students from a CSV file on the common fork-join pool
+     * @param fileName - name of CSV file containing student details, with a header row
+     * @return the students in file order, and any rows that could not be loaded
+     * @throws IOException if the file cannot be read
+     */
+    public static LoadResult load(String fileName) throws IOException {
+        return load(Paths.get(fileName), ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Load students from a CSV file
+     * @param file - CSV file containing student details, with a header row
+     * @param pool - pool to parse the chunks on
+     * @return the students in file order, and any rows that could not be loaded
+     * @throws IOException if the file cannot be read
+     */
+    public static LoadResult load(Path file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            
+            // Line 1 is the header
+            long dataStart = nextLineStart(channel, 0, size);
+            long chunkSize = Math.max(MIN_CHUNK_SIZE,
+                    Math.min(MAX_CHUNK_SIZE, (size - dataStart) / (pool.getParallelism() * 4L) + 1));
+            
+            List<Callable<ChunkResult>> tasks = new ArrayList<>();
+            long start = dataStart;
+            while (start < size) {
+                long end = nextLineStart(channel, Math.min(size, start + chunkSize), size);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                tasks.add(() -> parseChunk(chunk));
+                start = end;
+            }
+            
+            List<Student> students = new ArrayList<>();
+            List<RowError> errors = new ArrayList<>();
+            long firstLine = 2;
+            for (Future<ChunkResult> future : pool.invokeAll(tasks)) {
+                ChunkResult result = future.get();
+                students.addAll(result.students);
+                for (RowError error : result.errors) {
+                    // Chunks only know their own line offsets until they are joined
+                    errors.add(new RowError(firstLine + error.lineNumber, error.message));
+                }
+                firstLine += result.lineCount;
+            }
+            return new LoadResult(students, errors);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + file, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error loading " + file + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+    
+    /**
+     * Find the start of the line after the one containing position - 1,
+     * so a chunk ending at position never splits a row
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+        long scan = position == 0 ? 0 : position - 1;
+        while (scan < size) {
+            block.clear();
+            int read = channel.read(block, scan);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n') {
+                    return scan + i + 1;
+                }
+            }
+            scan += read;
+        }
+        return size;
+    }
+    
+    // Chunk parsing, run in parallel
+    
+    private static ChunkResult parseChunk(ByteBuffer chunk) {
+        ChunkResult result = new ChunkResult();
+        RowParser parser = new RowParser();
+        int limit = chunk.limit();
+        int lineStart = 0;
+        
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && chunk.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            
+            // Blank lines are skipped, as the Scanner-based loader did
+            if (contentEnd > lineStart) {
+                try {
+                    result.students.add(parser.parse(chunk, lineStart, contentEnd));
+                } catch (IllegalArgumentException e) {
+                    result.errors.add(new RowError(result.lineCount, e.getMessage()));
+                }
+            }
+            result.lineCount++;
+            lineStart = lineEnd + 1;
+        }
+        return result;
+    }
+    
+    /**
+     * Splits one row into fields and builds a Student from them. Reuses its
+     * line buffer and field offsets across rows; one per chunk.
+     */
+    private static final class RowParser {
+        
+        private byte[] line = new byte[256];
+        private final int[] fieldStarts = new int[FIELD_COUNT];
+        private final int[] fieldEnds = new int[FIELD_COUNT];
+        
+        Student parse(ByteBuffer chunk, int start, int end) {
+            int length = end - start;
+            if (line.length < length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            chunk.get(start, line, 0, length);
+            
+            int field = 0;
+            fieldStarts[0] = 0;
+            for (int i = 0; i < length; i++) {
+                if (line[i] == ',') {
+                    if (field == FIELD_COUNT - 1) {
+                        throw new IllegalArgumentException("Expected " + FIELD_COUNT + " fields but found more");
+                    }
+                    fieldEnds[field++] = i;
+                    fieldStarts[field] = i + 1;
+                }
+            }
+            fieldEnds[field] = length;
+            if (field != FIELD_COUNT - 1) {
+                throw new IllegalArgumentException("Expected " + FIELD_COUNT + " fields but found " + (field + 1));
+            }
+            
+            return new Student(text(0), text(1), text(2), parseInt(3, "age"), text(4), text(5),
+                    parseInt(6, "year of study"), parseDouble(7, "GPA"));
+        }
+        
+        private String text(int field) {
+            return new String(line, fieldStarts[field], fieldEnds[field] - fieldStarts[field], CHARSET);
+        }
+        
+        private int parseInt(int field, String name) {
+            int start = fieldStarts[field];
+            int end = fieldEnds[field];
+            boolean negative = start < end && line[start] == '-';
+            if (negative) {
+                start++;
+            }
+            if (start == end || end - start > 9) {
+                throw invalid(field, name);
+            }
+            
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = line[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw invalid(field, name);
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+        
+        /**
+         * Plain decimals are converted exactly as mantissa / 10^scale, which is
+         * correctly rounded because both operands are exact doubles; anything
+         * else goes to Double.parseDouble
+         */
+        private double parseDouble(int field, String name) {
+            int start = fieldStarts[field];
+            int end = fieldEnds[field];
+            
+            long mantissa = 0;
+            int digits = 0;
+            int scale = -1;
+            boolean simple = start < end;
+            for (int i = start; i < end && simple; i++) {
+                byte b = line[i];
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (scale >= 0) {
+                        scale++;
+                    }
+                } else if (b == '.' && scale < 0) {
+                    scale = 0;
+                } else {
+                    simple = false;
+                }
+            }
+            if (simple && digits > 0 && digits <= 15 && scale < POWERS_OF_TEN.length) {
+                return mantissa / POWERS_OF_TEN[Math.max(scale, 0)];
+            }
+            
+            try {
+                return Double.parseDouble(text(field).trim());
+            } catch (NumberFormatException e) {
+                throw invalid(field, name);
+            }
+        }
+        
+        private IllegalArgumentException invalid(int field, String name) {
+            return new IllegalArgumentException("Invalid " + name + ": '" + text(field) + "'");
+        }
+    }
+    
+    private static final class ChunkResult {
+        private final List<Student> students = new ArrayList<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private int lineCount;
+    }
+    
+    /**
+     * Students loaded from a file, with the rows that could not be loaded
+     */
+    public static class LoadResult {
+        
+        private final List<Student> students;
+        private final List<RowError> errors;
+        
+        LoadResult(List<Student> students, List<RowError> errors) {
+            this.students = students;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+        
+        /**
+         * @return the loaded students, in the order of their rows
+         */
+        public List<Student> getStudents() {
+            return students;
+        }
+        
+        /**
+         * @return the malformed rows, in file order
+         */
+        public List<RowError> getErrors() {
+            return errors;
+        }
+    }
+    
+    /**
+     * A row that could not be turned into a Student
+     */
+    public static class RowError {
+        
+        private final long lineNumber;
+        private final String message;
+        
+        RowError(long lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+        
+        /**
+         * @return the 1-based line number in the file; the header is line 1
+         */
+        public long getLineNumber() {
+            return lineNumber;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        @Override
+        public String toString() {
+            return "Line " + lineNumber + ": " + message;
+        }
+    }
+}
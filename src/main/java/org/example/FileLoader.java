@@ -1,9 +1,8 @@
 package org.example;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
-import java.util.Scanner;
 
 /**
  * FileLoader class for loading student data from CSV files
@@ -11,8 +10,13 @@ import java.util.Scanner;
  */
 public class FileLoader {
     
+    // Most malformed rows to print; the rest are only counted
+    private static final int MAX_ERRORS_SHOWN = 20;
+    
     /**
      * Load student data from a CSV file into an ArrayList
+     * Rows are parsed in parallel by CsvStudentLoader; malformed rows are
+     * reported with their line numbers once loading has finished.
      * @param studentList - ArrayList to be filled with Student objects
      * @param fileName - name of CSV file containing student details
      */
@@ -22,38 +26,27 @@ public class FileLoader {
         // StudentID,FirstName,LastName,Age,Email,Course,YearOfStudy,GPA
         // S001,John,Doe,20,john.doe@email.com,Computer Science,2,3.8
         
-        try (Scanner sc = new Scanner(new File(fileName))
-                .useDelimiter("[,\\r\\n]+")) {
-            
-            // Skip past the first line, as it has field names (not data)
-            if (sc.hasNextLine()) {
-                sc.nextLine();   // read the header line containing column titles, but don't use it
-            }
+        System.out.println("Loading student data from file: " + fileName);
+        
+        try {
+            CsvStudentLoader.LoadResult result = CsvStudentLoader.load(fileName);
+            studentList.addAll(result.getStudents());
             
-            System.out.println("Loading student data from file: " + fileName);
+            System.out.println("Successfully loaded " + result.getStudents().size() + " students from file.");
             
-            // while there is a next token to read....
-            while (sc.hasNext()) {
-                String studentId = sc.next();    // read student ID
-                String firstName = sc.next();    // read first name
-                String lastName = sc.next();     // read last name
-                int age = sc.nextInt();          // read age
-                String email = sc.next();        // read email
-                String course = sc.next();       // read course
-                int yearOfStudy = sc.nextInt();  // read year of study
-                double gpa = sc.nextDouble();    // read GPA
-                
-                System.out.println(studentId + ", " + firstName + " " + lastName);
-                
-                studentList.add(new Student(studentId, firstName, lastName, age, 
-                                          email, course, yearOfStudy, gpa));
+            if (!result.getErrors().isEmpty()) {
+                System.out.println("Skipped " + result.getErrors().size() + " malformed rows:");
+                result.getErrors().stream()
+                        .limit(MAX_ERRORS_SHOWN)
+                        .forEach(error -> System.out.println("  " + error));
+                if (result.getErrors().size() > MAX_ERRORS_SHOWN) {
+                    System.out.println("  ... and " + (result.getErrors().size() - MAX_ERRORS_SHOWN) + " more");
+                }
             }
             
-            System.out.println("Successfully loaded " + studentList.size() + " students from file.");
-            
-        } catch (FileNotFoundException exception) {
-            System.out.println("FileNotFoundException caught. The file " + fileName + " may not exist." + exception);
-        } catch (Exception exception) {
+        } catch (NoSuchFileException exception) {
+            System.out.println("NoSuchFileException caught. The file " + fileName + " may not exist." + exception);
+        } catch (IOException exception) {
             System.out.println("Error reading file: " + exception.getMessage());
         }
     }
@@ -0,0 +1,405 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * Percentile lookups over a set of GPAs
+ * Demonstrates abstract classes, nested classes and a mergeable streaming sketch
+ *
+ * Every mode answers getPercentile with the same nearest-rank definition
+ * Statistics.getGPAPercentile uses: the value at position
+ * ceil(percentile / 100 * count) - 1 in sorted order. Which mode to use is
+ * the caller's choice:
+ * - SORTED keeps every GPA in a sorted double[]; exact for any values
+ * - HISTOGRAM counts GPAs in 401 buckets of 0.01, as stored by
+ *   DECIMAL(3,2) in students.sql; exact, constant size, but rejects GPAs
+ *   with more than two decimals
+ * - SKETCH keeps a KLL sketch of a few hundred samples; approximate, but
+ *   constant size for any stream and mergeable across threads or files
+ */
+public abstract class GpaPercentiles {
+    
+    /**
+     * How the GPAs are summarized
+     */
+    public enum Mode {
+        SORTED, HISTOGRAM, SKETCH
+    }
+    
+    /**
+     * Summarize the GPAs of some students
+     * @param students the students to summarize
+     * @param mode how to store the GPAs
+     * @return percentiles over the students' GPAs
+     */
+    public static GpaPercentiles of(Collection<Student> students, Mode mode) {
+        switch (mode) {
+            case SORTED:
+                double[] gpas = new double[students.size()];
+                int i = 0;
+                for (Student student : students) {
+                    gpas[i++] = student.getGpa();
+                }
+                return new Sorted(gpas);
+            case HISTOGRAM:
+                Histogram histogram = new Histogram();
+                for (Student student : students) {
+                    histogram.add(student.getGpa());
+                }
+                return histogram;
+            case SKETCH:
+                Sketch sketch = new Sketch();
+                for (Student student : students) {
+                    sketch.add(student.getGpa());
+                }
+                return sketch;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+    
+    /**
+     * @return the number of GPAs summarized
+     */
+    public abstract long getCount();
+    
+    /**
+     * Get the GPA at a percentile
+     * @param percentile percentile (0-100)
+     * @return GPA value at that percentile, or 0.0 if there are no GPAs
+     */
+    public abstract double getPercentile(double percentile);
+    
+    /**
+     * Zero-based nearest rank of a percentile, as in Statistics.getGPAPercentile
+     */
+    static long rank(double percentile, long count) {
+        long rank = Math.max(0, (long) Math.ceil((percentile / 100.0) * count) - 1);
+        if (rank >= count) {
+            throw new IndexOutOfBoundsException("Percentile " + percentile + " is out of range");
+        }
+        return rank;
+    }
+    
+    /**
+     * Exact percentiles from a sorted copy of the GPAs
+     */
+    static final class Sorted extends GpaPercentiles {
+        
+        private final double[] sorted;
+        
+        /**
+         * @param gpas the GPAs; sorted in place
+         */
+        Sorted(double[] gpas) {
+            Arrays.sort(gpas);
+            this.sorted = gpas;
+        }
+        
+        @Override
+        public long getCount() {
+            return sorted.length;
+        }
+        
+        @Override
+        public double getPercentile(double percentile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            return sorted[(int) rank(percentile, sorted.length)];
+        }
+    }
+    
+    /**
+     * Exact percentiles from counts of GPAs in steps of 0.01
+     * Histograms can be filled incrementally and merged.
+     */
+    public static final class Histogram extends GpaPercentiles {
+        
+        private static final int BUCKETS = 401; // 0.00 to 4.00
+        
+        private final long[] counts;
+        private long count;
+        
+        // Running totals over counts, rebuilt on the first lookup after a change
+        private long[] cumulative;
+        
+        public Histogram() {
+            this.counts = new long[BUCKETS];
+            this.count = 0;
+        }
+        
+        /**
+         * Count one GPA
+         * @param gpa a GPA between 0.00 and 4.00 with at most two decimals
+         */
+        public void add(double gpa) {
+            long bucket = Math.round(gpa * 100);
+            if (bucket < 0 || bucket >= BUCKETS || bucket / 100.0 != gpa) {
+                throw new IllegalArgumentException("GPA " + gpa + " does not fit a two-decimal histogram");
+            }
+            counts[(int) bucket]++;
+            count++;
+            cumulative = null;
+        }
+        
+        /**
+         * Add another histogram's counts to this one
+         * @param other the histogram to fold in
+         */
+        public void merge(Histogram other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            cumulative = null;
+        }
+        
+        @Override
+        public long getCount() {
+            return count;
+        }
+        
+        @Override
+        public double getPercentile(double percentile) {
+            if (count == 0) {
+                return 0.0;
+            }
+            if (cumulative == null) {
+                cumulative = new long[BUCKETS];
+                long total = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    total += counts[i];
+                    cumulative[i] = total;
+                }
+            }
+            
+            // First bucket whose running total passes the rank
+            long rank = rank(percentile, count);
+            int low = 0;
+            int high = BUCKETS - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] > rank) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low / 100.0;
+        }
+    }
+    
+    /**
+     * Approximate percentiles from a KLL sketch
+     *
+     * Samples are kept in levels; a sample at level h stands for 2^h GPAs.
+     * When a level fills up it is sorted and every other sample, starting at
+     * a random offset, moves up a level, halving its size while keeping the
+     * total weight equal to the number of GPAs added. Lower levels get
+     * geometrically smaller capacities, so the sketch never holds more than
+     * about 3k samples. With the default k of 200 it holds a few hundred and
+     * answers within about 1.5% of the count in rank.
+     */
+    public static final class Sketch extends GpaPercentiles {
+        
+        private static final int DEFAULT_K = 200;
+        private static final double CAPACITY_DECAY = 2.0 / 3.0;
+        private static final int MIN_CAPACITY = 8;
+        
+        private final int k;
+        private final SplittableRandom random;
+        private double[][] levels;
+        private int[] sizes;
+        private int levelCount;
+        private long count;
+        
+        // All samples in order with running weights, rebuilt on the first lookup after a change
+        private double[] sortedSamples;
+        private long[] cumulativeWeights;
+        
+        public Sketch() {
+            this(DEFAULT_K);
+        }
+        
+        /**
+         * @param k accuracy parameter; the rank error shrinks and the size grows in proportion to k
+         */
+        public Sketch(int k) {
+            if (k < MIN_CAPACITY) {
+                throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY);
+            }
+            this.k = k;
+            this.random = new SplittableRandom();
+            this.levels = new double[1][k];
+            this.sizes = new int[1];
+            this.levelCount = 1;
+            this.count = 0;
+        }
+        
+        /**
+         * Add one GPA to the sketch
+         * @param gpa the GPA
+         */
+        public void add(double gpa) {
+            append(0, gpa);
+            count++;
+            sortedSamples = null;
+            if (sizes[0] >= capacity(0)) {
+                compress();
+            }
+        }
+        
+        /**
+         * Fold another sketch into this one. The result summarizes both
+         * streams with the same accuracy as a sketch that saw them all.
+         * @param other the sketch to fold in; left unchanged
+         */
+        public void merge(Sketch other) {
+            for (int level = 0; level < other.levelCount; level++) {
+                for (int i = 0; i < other.sizes[level]; i++) {
+                    append(level, other.levels[level][i]);
+                }
+            }
+            count += other.count;
+            sortedSamples = null;
+            compress();
+        }
+        
+        @Override
+        public long getCount() {
+            return count;
+        }
+        
+        /**
+         * @return the number of samples the sketch is holding
+         */
+        public int getSampleCount() {
+            int samples = 0;
+            for (int level = 0; level < levelCount; level++) {
+                samples += sizes[level];
+            }
+            return samples;
+        }
+        
+        @Override
+        public double getPercentile(double percentile) {
+            if (count == 0) {
+                return 0.0;
+            }
+            if (sortedSamples == null) {
+                sortSamples();
+            }
+            
+            long rank = rank(percentile, count);
+            int low = 0;
+            int high = sortedSamples.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulativeWeights[middle] > rank) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return sortedSamples[low];
+        }
+        
+        private int capacity(int level) {
+            int depth = levelCount - 1 - level;
+            return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+        }
+        
+        private void append(int level, double value) {
+            while (level >= levelCount) {
+                addLevel();
+            }
+            if (sizes[level] == levels[level].length) {
+                levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+            }
+            levels[level][sizes[level]++] = value;
+        }
+        
+        private void addLevel() {
+            if (levelCount == levels.length) {
+                levels = Arrays.copyOf(levels, levelCount * 2);
+                sizes = Arrays.copyOf(sizes, levelCount * 2);
+            }
+            levels[levelCount] = new double[MIN_CAPACITY];
+            sizes[levelCount] = 0;
+            levelCount++;
+        }
+        
+        /**
+         * Compact every level that is over capacity, bottom up, until none is
+         */
+        private void compress() {
+            boolean compacted = true;
+            while (compacted) {
+                compacted = false;
+                for (int level = 0; level < levelCount; level++) {
+                    if (sizes[level] >= capacity(level)) {
+                        compact(level);
+                        compacted = true;
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Promote every other sample of a level to the next one. An odd
+         * sample out stays behind, so total weight is preserved exactly.
+         */
+        private void compact(int level) {
+            double[] items = levels[level];
+            int size = sizes[level];
+            Arrays.sort(items, 0, size);
+            
+            int kept = size % 2;
+            int offset = random.nextBoolean() ? 1 : 0;
+            for (int i = kept + offset; i < size; i += 2) {
+                append(level + 1, items[i]);
+            }
+            // append may have replaced the levels array, but never this level's samples
+            sizes[level] = kept;
+        }
+        
+        /**
+         * Merge every level, sorted, into one list with running weights
+         */
+        private void sortSamples() {
+            double[] values = new double[0];
+            long[] weights = new long[0];
+            for (int level = 0; level < levelCount; level++) {
+                double[] items = Arrays.copyOf(levels[level], sizes[level]);
+                Arrays.sort(items);
+                long[] itemWeights = new long[items.length];
+                Arrays.fill(itemWeights, 1L << level);
+                
+                double[] mergedValues = new double[values.length + items.length];
+                long[] mergedWeights = new long[mergedValues.length];
+                int a = 0;
+                int b = 0;
+                for (int out = 0; out < mergedValues.length; out++) {
+                    if (b == items.length || (a < values.length && values[a] <= items[b])) {
+                        mergedValues[out] = values[a];
+                        mergedWeights[out] = weights[a++];
+                    } else {
+                        mergedValues[out] = items[b];
+                        mergedWeights[out] = itemWeights[b++];
+                    }
+                }
+                values = mergedValues;
+                weights = mergedWeights;
+            }
+            
+            for (int i = 1; i < weights.length; i++) {
+                weights[i] += weights[i - 1];
+            }
+            sortedSamples = values;
+            cumulativeWeights = weights;
+        }
+    }
+}
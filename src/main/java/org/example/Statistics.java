@@ -9,6 +9,12 @@ import java.util.stream.Collectors;
  */
 public class Statistics {
     
+    // Lists at least this long are summarized in parallel
+    private static final int PARALLEL_THRESHOLD = 10_000;
+    
+    private static final String[] GRADES = {"A", "B", "C", "D", "F"};
+    private static final String[] AGE_GROUPS = {"18-20", "21-25", "26-30", "31+"};
+    
     private List<Student> students;
     
     public Statistics(List<Student> students) {
@@ -165,48 +171,71 @@ public class Statistics {
     
     /**
      * Calculate GPA percentile
+     * Sorts the GPAs on every call; to look up several percentiles, take
+     * getGPAPercentiles once and query that instead.
      * @param percentile percentile (0-100)
      * @return GPA value at that percentile
      */
     public double getGPAPercentile(double percentile) {
-        if (students.isEmpty()) {
-            return 0.0;
-        }
-        
-        List<Double> gpas = students.stream()
-                .map(Student::getGpa)
-                .sorted()
-                .collect(Collectors.toList());
-        
-        int index = (int) Math.ceil((percentile / 100.0) * gpas.size()) - 1;
-        return gpas.get(Math.max(0, index));
+        return GpaPercentiles.of(students, GpaPercentiles.Mode.SORTED).getPercentile(percentile);
+    }
+    
+    /**
+     * Summarize the current GPAs for repeated percentile lookups
+     * The result is a snapshot: later changes to the students are not seen.
+     * @param mode SORTED or HISTOGRAM for exact answers, SKETCH for a bounded-size approximation
+     * @return percentiles over the students' GPAs
+     */
+    public GpaPercentiles getGPAPercentiles(GpaPercentiles.Mode mode) {
+        return GpaPercentiles.of(students, mode);
     }
     
     /**
      * Get summary statistics as a formatted string
+     * All the figures come from one pass over the students; see summarize.
      * @return formatted statistics summary
      */
     public String getSummaryStatistics() {
+        Summary result = summarize();
+        
         StringBuilder summary = new StringBuilder();
         summary.append("=== STUDENT STATISTICS SUMMARY ===\n");
         summary.append("Total Students: ").append(students.size()).append("\n");
-        summary.append("Average GPA: ").append(String.format("%.2f", calculateAverageGPA())).append("\n");
-        summary.append("Highest GPA: ").append(String.format("%.2f", getHighestGPA())).append("\n");
-        summary.append("Lowest GPA: ").append(String.format("%.2f", getLowestGPA())).append("\n");
-        summary.append("GPA Standard Deviation: ").append(String.format("%.2f", calculateGPAStandardDeviation())).append("\n");
-        summary.append("Average Age: ").append(String.format("%.1f", calculateAverageAge())).append("\n");
+        summary.append("Average GPA: ").append(String.format("%.2f", result.getAverageGPA())).append("\n");
+        summary.append("Highest GPA: ").append(String.format("%.2f", result.getHighestGPA())).append("\n");
+        summary.append("Lowest GPA: ").append(String.format("%.2f", result.getLowestGPA())).append("\n");
+        summary.append("GPA Standard Deviation: ").append(String.format("%.2f", result.getGPAStandardDeviation())).append("\n");
+        summary.append("Average Age: ").append(String.format("%.1f", result.getAverageAge())).append("\n");
         
         summary.append("\nGrade Distribution:\n");
-        getGradeDistribution().forEach((grade, count) -> 
+        result.getGradeDistribution().forEach((grade, count) -> 
             summary.append(grade).append(": ").append(count).append(" students\n"));
         
         summary.append("\nAge Distribution:\n");
-        getAgeDistribution().forEach((ageGroup, count) -> 
+        result.getAgeDistribution().forEach((ageGroup, count) -> 
             summary.append(ageGroup).append(": ").append(count).append(" students\n"));
         
         return summary.toString();
     }
     
+    /**
+     * Compute every summary figure in a single pass over the students
+     * Large lists are split across the common fork-join pool and the
+     * partial results merged.
+     * @return the summary
+     */
+    public Summary summarize() {
+        if (students.size() >= PARALLEL_THRESHOLD) {
+            return students.parallelStream().collect(Summary::new, Summary::add, Summary::merge);
+        }
+        
+        Summary summary = new Summary();
+        for (Student student : students) {
+            summary.add(student);
+        }
+        return summary;
+    }
+    
     /**
      * Update the student list
      * @param newStudents new list of students
@@ -222,4 +251,155 @@ public class Statistics {
     public int getStudentCount() {
         return students.size();
     }
+    
+    /**
+     * Mergeable one-pass accumulator for the summary statistics
+     *
+     * The GPA minimum and maximum are kept in a DoubleSummaryStatistics, and
+     * the GPAs themselves are copied, in list order, into a primitive array.
+     * The average and standard deviation are worked out from that array
+     * with the same sums, in the same order, as calculateAverageGPA and
+     * calculateGPAStandardDeviation, so they round the same way even when
+     * the students were split across threads, without going back to the
+     * students.
+     */
+    public static final class Summary {
+        
+        private final DoubleSummaryStatistics gpa;
+        private double[] gpas; // the first gpa.getCount() are in use
+        private long ageSum;
+        private final long[] gradeCounts;
+        private final long[] ageGroupCounts;
+        
+        public Summary() {
+            this.gpa = new DoubleSummaryStatistics();
+            this.gpas = new double[16];
+            this.ageSum = 0;
+            this.gradeCounts = new long[GRADES.length];
+            this.ageGroupCounts = new long[AGE_GROUPS.length];
+        }
+        
+        /**
+         * Add one student to the running figures
+         * @param student the student to count
+         */
+        public void add(Student student) {
+            double value = student.getGpa();
+            int count = (int) gpa.getCount();
+            if (count == gpas.length) {
+                gpas = Arrays.copyOf(gpas, count * 2);
+            }
+            gpas[count] = value;
+            gpa.accept(value);
+            
+            int age = student.getAge();
+            ageSum += age;
+            gradeCounts[gradeIndex(value)]++;
+            ageGroupCounts[ageGroupIndex(age)]++;
+        }
+        
+        /**
+         * Fold another partial summary into this one
+         * @param other summary of a disjoint set of students
+         */
+        public void merge(Summary other) {
+            int count = (int) gpa.getCount();
+            int otherCount = (int) other.gpa.getCount();
+            if (otherCount == 0) {
+                return;
+            }
+            
+            // Parallel streams merge the partial results in list order
+            if (count + otherCount > gpas.length) {
+                gpas = Arrays.copyOf(gpas, count + otherCount);
+            }
+            System.arraycopy(other.gpas, 0, gpas, count, otherCount);
+            gpa.combine(other.gpa);
+            ageSum += other.ageSum;
+            for (int i = 0; i < gradeCounts.length; i++) {
+                gradeCounts[i] += other.gradeCounts[i];
+            }
+            for (int i = 0; i < ageGroupCounts.length; i++) {
+                ageGroupCounts[i] += other.ageGroupCounts[i];
+            }
+        }
+        
+        public long getCount() {
+            return gpa.getCount();
+        }
+        
+        public double getAverageGPA() {
+            int count = (int) gpa.getCount();
+            return count == 0 ? 0.0 : Arrays.stream(gpas, 0, count).sum() / count;
+        }
+        
+        public double getHighestGPA() {
+            return gpa.getCount() == 0 ? 0.0 : gpa.getMax();
+        }
+        
+        public double getLowestGPA() {
+            return gpa.getCount() == 0 ? 0.0 : gpa.getMin();
+        }
+        
+        /**
+         * Same arithmetic, in the same order, as calculateGPAStandardDeviation
+         * @return the population standard deviation, or 0.0 for fewer than two students
+         */
+        public double getGPAStandardDeviation() {
+            int count = (int) gpa.getCount();
+            if (count < 2) {
+                return 0.0;
+            }
+            
+            double mean = getAverageGPA();
+            double variance = Arrays.stream(gpas, 0, count)
+                    .map(value -> Math.pow(value - mean, 2))
+                    .sum() / count;
+            
+            return Math.sqrt(variance);
+        }
+        
+        public double getAverageAge() {
+            return gpa.getCount() == 0 ? 0.0 : (double) ageSum / gpa.getCount();
+        }
+        
+        /**
+         * @return counts for A to F, in that order
+         */
+        public Map<String, Long> getGradeDistribution() {
+            return toMap(GRADES, gradeCounts);
+        }
+        
+        /**
+         * @return counts for each age group, youngest first
+         */
+        public Map<String, Long> getAgeDistribution() {
+            return toMap(AGE_GROUPS, ageGroupCounts);
+        }
+        
+        private static Map<String, Long> toMap(String[] keys, long[] counts) {
+            Map<String, Long> distribution = new LinkedHashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                distribution.put(keys[i], counts[i]);
+            }
+            return distribution;
+        }
+        
+        // Same bands as getLetterGrade and getAgeDistribution
+        
+        private static int gradeIndex(double gpa) {
+            if (gpa >= 3.7) return 0;
+            else if (gpa >= 3.0) return 1;
+            else if (gpa >= 2.0) return 2;
+            else if (gpa >= 1.0) return 3;
+            else return 4;
+        }
+        
+        private static int ageGroupIndex(int age) {
+            if (age <= 20) return 0;
+            else if (age <= 25) return 1;
+            else if (age <= 30) return 2;
+            else return 3;
+        }
+    }
 }
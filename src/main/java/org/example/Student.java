@@ -2,6 +2,7 @@ package org.example;
 
 import java.io.Serializable;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Student class demonstrating OOP concepts:
@@ -21,8 +22,8 @@ public class Student extends Person implements Comparable<Student>, Serializable
     private int yearOfStudy;
     private double gpa;
     
-    // Static variable to track total students
-    private static int totalStudents = 0;
+    // Static variable to track total students; atomic because loaders create students in parallel
+    private static final AtomicInteger totalStudents = new AtomicInteger();
     
     // Constants
     public static final int MIN_YEAR = 1;
@@ -39,7 +40,7 @@ public class Student extends Person implements Comparable<Student>, Serializable
         this.course = "";
         this.yearOfStudy = MIN_YEAR;
         this.gpa = MIN_GPA;
-        totalStudents++;
+        totalStudents.incrementAndGet();
     }
     
     /**
@@ -65,7 +66,7 @@ public class Student extends Person implements Comparable<Student>, Serializable
         setYearOfStudy(yearOfStudy);
         setGpa(gpa);
         
-        totalStudents++;
+        totalStudents.incrementAndGet();
     }
     
     // Getters and Setters (encapsulation)
@@ -119,7 +120,7 @@ public class Student extends Person implements Comparable<Student>, Serializable
     
     // Static method
     public static int getTotalStudents() {
-        return totalStudents;
+        return totalStudents.get();
     }
     
     // Business logic methods with validation